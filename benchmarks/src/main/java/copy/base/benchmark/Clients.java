@@ -0,0 +1,51 @@
+package copy.base.benchmark;
+
+import copy.base.domain.datasource.Client;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test data shared by the benchmarks: the {@code clients_50k.csv} file bundled with the application.
+ */
+final class Clients {
+
+    static final String FILE = "clients_50k.csv";
+
+    private Clients() {
+    }
+
+    static List<Client> load() {
+        List<Client> clients = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ClassPathResource(FILE).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",", -1);
+                clients.add(new Client(Long.parseLong(fields[0]), fields[1], fields[2], fields[3], fields[4]));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return clients;
+    }
+
+    static Path copyToTempFile() {
+        try {
+            Path file = Files.createTempFile("clients", ".csv");
+            file.toFile().deleteOnExit();
+            Files.copy(new ClassPathResource(FILE).getInputStream(), file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
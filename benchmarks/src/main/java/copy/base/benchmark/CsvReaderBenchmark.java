@@ -0,0 +1,89 @@
+package copy.base.benchmark;
+
+import copy.base.domain.datasource.Client;
+import copy.base.domain.datasource.ClientCsvRecordMapper;
+import copy.base.domain.datasource.MappedCsvItemReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads all of {@code clients_50k.csv} with the step1 readers: the delimited {@link FlatFileItemReader} and the
+ * memory-mapped {@link MappedCsvItemReader}. Reports the time per file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvReaderBenchmark {
+
+    private Path file;
+
+    @Setup
+    public void setUp() {
+        file = Clients.copyToTempFile();
+    }
+
+    @Benchmark
+    public long flatFileItemReader() throws Exception {
+        FlatFileItemReader<Client> reader = new FlatFileItemReaderBuilder<Client>()
+                .name("clientItemReader")
+                .resource(new FileSystemResource(file))
+                .saveState(false)
+                .delimited()
+                .names(new String[]{"id", "firstName", "lastName", "email", "phone"})
+                .fieldSetMapper(fieldSet -> {
+                    Client client = new Client();
+                    client.setId(fieldSet.readLong("id"));
+                    client.setFirstName(fieldSet.readString("firstName"));
+                    client.setLastName(fieldSet.readString("lastName"));
+                    client.setEmail(fieldSet.readString("email"));
+                    client.setPhone(fieldSet.readString("phone"));
+                    return client;
+                }).build();
+        return readAll(reader);
+    }
+
+    @Benchmark
+    public long mappedCsvItemReader() throws Exception {
+        MappedCsvItemReader<Client> reader = new MappedCsvItemReader<>();
+        reader.setName("clientItemReader");
+        reader.setFile(file);
+        reader.setStartOffset(0);
+        reader.setEndOffset(Files.size(file));
+        reader.setRecordMapper(new ClientCsvRecordMapper());
+        return readAll(reader);
+    }
+
+    private static long readAll(ItemStreamReader<Client> reader) throws Exception {
+        reader.open(new ExecutionContext());
+        try {
+            long sum = 0;
+            Client client;
+            while ((client = reader.read()) != null) {
+                sum += client.getId();
+            }
+            return sum;
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package copy.base.benchmark;
+
+import copy.base.domain.datasource.Client;
+import copy.base.domain.datasource.ClientRowCodec;
+import copy.base.domain.schema.ColumnIndexRowMapper;
+import copy.base.domain.schema.ColumnMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps an in-memory result set of clients, by column label as a baseline, with the {@link ClientRowCodec} and
+ * with the generic {@link ColumnIndexRowMapper}. Reports the time per mapped row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final String[] COLUMNS = {"id", "firstName", "lastName", "email", "phone"};
+
+    private static final int ROWS = 2048;
+
+    private CachedRowSet resultSet;
+
+    private final RowMapper<Client> labelRowMapper = (resultSet, i) -> new Client(resultSet.getLong("id"),
+            resultSet.getString("firstName"),
+            resultSet.getString("lastName"),
+            resultSet.getString("email"),
+            resultSet.getString("phone"));
+
+    private final ClientRowCodec clientRowCodec = new ClientRowCodec();
+
+    private ColumnIndexRowMapper columnIndexRowMapper;
+
+    @Setup
+    public void setUp() throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(COLUMNS.length);
+        List<ColumnMetadata> columns = new ArrayList<>(COLUMNS.length);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            int type = i == 0 ? Types.BIGINT : Types.VARCHAR;
+            metaData.setColumnName(i + 1, COLUMNS[i]);
+            metaData.setColumnLabel(i + 1, COLUMNS[i]);
+            metaData.setColumnType(i + 1, type);
+            columns.add(new ColumnMetadata(COLUMNS[i], type, i == 0 ? "int8" : "varchar", i == 0 ? 19 : 255));
+        }
+        columnIndexRowMapper = new ColumnIndexRowMapper(columns);
+
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        List<Client> clients = Clients.load();
+        for (int i = 0; i < ROWS; i++) {
+            Client client = clients.get(i % clients.size());
+            resultSet.moveToInsertRow();
+            resultSet.updateLong(1, client.getId());
+            resultSet.updateString(2, client.getFirstName());
+            resultSet.updateString(3, client.getLastName());
+            resultSet.updateString(4, client.getEmail());
+            resultSet.updateString(5, client.getPhone());
+            resultSet.insertRow();
+        }
+        resultSet.moveToCurrentRow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void labelRowMapper(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        int i = 0;
+        while (resultSet.next()) {
+            blackhole.consume(labelRowMapper.mapRow(resultSet, i++));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void clientRowCodec(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        int i = 0;
+        while (resultSet.next()) {
+            blackhole.consume(clientRowCodec.mapRow(resultSet, i++));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void columnIndexRowMapper(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        int i = 0;
+        while (resultSet.next()) {
+            blackhole.consume(columnIndexRowMapper.mapRow(resultSet, i++));
+        }
+    }
+}
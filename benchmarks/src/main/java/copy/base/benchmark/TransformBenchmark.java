@@ -0,0 +1,99 @@
+package copy.base.benchmark;
+
+import copy.base.domain.datasource.Client;
+import copy.base.domain.transform.ClientTransformProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upper and lower case processing of the step1 and step2 transforms, compared with the plain
+ * {@link String#toUpperCase()} / {@link String#toLowerCase()} mapping the former case processors did.
+ * Reports the time per processed client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark {
+
+    private static final int CLIENTS = 50_000;
+
+    private Client[] original;
+
+    private Client[] upperCased;
+
+    private ClientTransformProcessor upper;
+
+    private ClientTransformProcessor lower;
+
+    @Setup
+    public void setUp() {
+        List<Client> clients = Clients.load();
+        original = clients.subList(0, CLIENTS).toArray(new Client[0]);
+        upper = new ClientTransformProcessor(specifications("upper"));
+        lower = new ClientTransformProcessor(specifications("lower"));
+        upperCased = new Client[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            upperCased[i] = upper.process(original[i]);
+        }
+    }
+
+    private static Map<String, String> specifications(String operation) {
+        Map<String, String> specifications = new HashMap<>();
+        specifications.put("firstName", operation);
+        specifications.put("lastName", operation);
+        specifications.put("email", operation);
+        return specifications;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public void compiledUpper(Blackhole blackhole) {
+        for (Client client : original) {
+            blackhole.consume(upper.process(client));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public void compiledLower(Blackhole blackhole) {
+        for (Client client : upperCased) {
+            blackhole.consume(lower.process(client));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public void stringUpper(Blackhole blackhole) {
+        for (Client client : original) {
+            blackhole.consume(new Client(client.getId(), client.getFirstName().toUpperCase(), client.getLastName().toUpperCase(),
+                    client.getEmail().toUpperCase(), client.getPhone()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public void stringLower(Blackhole blackhole) {
+        for (Client client : upperCased) {
+            blackhole.consume(new Client(client.getId(), client.getFirstName().toLowerCase(), client.getLastName().toLowerCase(),
+                    client.getEmail().toLowerCase(), client.getPhone()));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package copy.base.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import copy.base.config.WriterMode;
+import copy.base.domain.datasource.Client;
+import copy.base.domain.datatarget.ClientPgCopyRowEncoder;
+import copy.base.domain.datatarget.PgCopyFormat;
+import copy.base.domain.datatarget.PgCopyItemWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the 50 000 clients into PostgreSQL with each writer strategy, in chunks of {@code chunkSize} items written
+ * by {@code poolSize} threads over as many connections, each chunk in its own transaction like a multi-threaded
+ * chunk step. Reports the time per 50 000 rows.
+ * <p>
+ * Needs a running PostgreSQL, by default the datatarget of {@code application.properties}; override with
+ * {@code -Dbenchmark.url=... -Dbenchmark.username=... -Dbenchmark.password=...}. The rows go into a
+ * {@code client_benchmark} table that is dropped afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WriterBenchmark {
+
+    private static final String TABLE = "client_benchmark";
+
+    @Param({"INSERT", "COPY_TEXT", "COPY_BINARY"})
+    private WriterMode writer;
+
+    @Param({"512", "2048", "8192"})
+    private int chunkSize;
+
+    @Param({"1", "4"})
+    private int poolSize;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ItemWriter<Client> itemWriter;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService executor;
+
+    private List<List<Client>> chunks;
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("benchmark.url", "jdbc:postgresql://localhost:5433/postgres"));
+        dataSource.setUsername(System.getProperty("benchmark.username", "postgres"));
+        dataSource.setPassword(System.getProperty("benchmark.password", "password"));
+        dataSource.setMaximumPoolSize(poolSize);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (id BIGINT PRIMARY KEY, firstName VARCHAR(255), lastName VARCHAR(255), "
+                + "email VARCHAR(255), phone VARCHAR(255))");
+
+        itemWriter = itemWriter();
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        executor = Executors.newFixedThreadPool(poolSize);
+
+        List<Client> clients = Clients.load();
+        chunks = new ArrayList<>();
+        for (int i = 0; i < clients.size(); i += chunkSize) {
+            chunks.add(clients.subList(i, Math.min(i + chunkSize, clients.size())));
+        }
+    }
+
+    private ItemWriter<Client> itemWriter() {
+        if (writer == WriterMode.INSERT) {
+            JdbcBatchItemWriter<Client> insertWriter = new JdbcBatchItemWriterBuilder<Client>()
+                    .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
+                    .sql("INSERT INTO " + TABLE + " (id, firstName, lastName, email, phone) VALUES (:id, :firstName, :lastName, :email, :phone)")
+                    .dataSource(dataSource)
+                    .build();
+            // outside of a Spring context nobody else detects the named parameters
+            insertWriter.afterPropertiesSet();
+            return insertWriter;
+        }
+        PgCopyItemWriter<Client> copyWriter = new PgCopyItemWriter<>();
+        copyWriter.setDataSource(dataSource);
+        copyWriter.setTable(TABLE);
+        copyWriter.setColumns(ClientPgCopyRowEncoder.COLUMNS);
+        copyWriter.setFormat(writer == WriterMode.COPY_BINARY ? PgCopyFormat.BINARY : PgCopyFormat.TEXT);
+        copyWriter.setEncoder(new ClientPgCopyRowEncoder());
+        copyWriter.afterPropertiesSet();
+        return copyWriter;
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE " + TABLE);
+    }
+
+    @Benchmark
+    public void write() throws Exception {
+        List<Future<?>> futures = new ArrayList<>(chunks.size());
+        for (List<Client> chunk : chunks) {
+            futures.add(executor.submit(() -> transactionTemplate.execute(status -> {
+                try {
+                    itemWriter.write(chunk);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return null;
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        dataSource.close();
+    }
+}
@@ -1,74 +1,283 @@
 package copy.base.config;
 
 import copy.base.domain.datasource.*;
+import copy.base.domain.datatarget.BulkLoadListener;
+import copy.base.domain.datatarget.ClientPgCopyRowEncoder;
+import copy.base.domain.datatarget.DataTargets;
+import copy.base.domain.datatarget.FanOutItemWriter;
+import copy.base.domain.datatarget.PgCopyFormat;
+import copy.base.domain.datatarget.PgCopyItemWriter;
+import copy.base.domain.datatarget.PgCopyPipeTasklet;
+import copy.base.domain.datatarget.TransactionalItemWriter;
+import copy.base.domain.index.ExistingIdFilterProcessor;
+import copy.base.domain.index.ExistingIds;
+import copy.base.domain.overlap.CommittedKeyItemReader;
+import copy.base.domain.overlap.CommittedWatermark;
+import copy.base.domain.overlap.WatermarkFollowingItemReader;
+import copy.base.domain.pipeline.PipelineTasklet;
+import copy.base.domain.transform.ClientTransformProcessor;
+import copy.base.domain.verify.RangeChecksumVerifier;
+import copy.base.domain.verify.VerifyTasklet;
+import copy.base.util.AdaptiveChunkListener;
+import copy.base.util.AdaptiveController;
+import copy.base.util.CopyMetrics;
 import copy.base.util.JobCompletionNotificationListener;
+import copy.base.util.StepMetricsListener;
+import copy.base.util.WatermarkListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.builder.FlowJobBuilder;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.PartitionStepBuilder;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.CompositeItemProcessor;
+import org.springframework.batch.item.support.SynchronizedItemStreamReader;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
 
 import javax.sql.DataSource;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 
 @Configuration
+@EnableConfigurationProperties(CopyProperties.class)
 public class BatchConfiguration {
     public static final int CHUNK_SIZE = 2048;
     public static final int CORE_POOL_SIZE = 4;
     public static final int MAX_CORE_POOL_SIZE = 16;
+    public static final int GRID_SIZE = MAX_CORE_POOL_SIZE;
+    private static final String CLIENT_WATERMARK_LOWER = "#{jobExecutionContext['client" + WatermarkListener.LOWER_SUFFIX + "']}";
+    private static final String CLIENT_WATERMARK_UPPER = "#{jobExecutionContext['client" + WatermarkListener.UPPER_SUFFIX + "']}";
     private static final Logger log = LoggerFactory.getLogger(BatchConfiguration.class);
 
     public final JobBuilderFactory jobBuilderFactory;
     public final StepBuilderFactory stepBuilderFactory;
     public final DataSource dataSource;
     public final DataSource dataTarget;
+    public final CopyProperties properties;
 
-    public BatchConfiguration(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, @Qualifier("datasource") DataSource dataSource, @Qualifier("datatarget") DataSource datatarget) {
+    public BatchConfiguration(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, @Qualifier("datasource") DataSource dataSource, @Qualifier("datatarget") DataSource datatarget, CopyProperties properties) {
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
         this.dataSource = dataSource;
         this.dataTarget = datatarget;
+        this.properties = properties;
     }
 
     @Bean
-    public ColumnRangePartitioner partitioner() {
+    @JobScope
+    public ColumnRangePartitioner partitioner(@Value(CLIENT_WATERMARK_LOWER) String lower,
+                                              @Value(CLIENT_WATERMARK_UPPER) String upper) {
         ColumnRangePartitioner columnRangePartitioner = new ColumnRangePartitioner();
 
         columnRangePartitioner.setColumn("id");
         columnRangePartitioner.setTable("client");
         columnRangePartitioner.setDataSource(dataSource);
 
+        List<Object> arguments = new ArrayList<>();
+        String filter = watermarkFilter(lower, upper, (name, value) -> {
+            arguments.add(value);
+            return "?";
+        });
+        if (!filter.isEmpty()) {
+            columnRangePartitioner.setWhere(filter, arguments.toArray());
+        }
+
         return columnRangePartitioner;
     }
 
     @Bean
-    public JdbcCursorItemReader<Client> cursorItemReader() {
-        return new JdbcCursorItemReaderBuilder<Client>()
+    public WatermarkListener clientWatermarkListener(JobExplorer jobExplorer, JobRepository jobRepository) {
+        return new WatermarkListener(jobExplorer, jobRepository, dataSource, "client", properties.getStep2().getIncremental().getColumn());
+    }
+
+    @Bean
+    public BulkLoadListener clientBulkLoadListener(JobRepository jobRepository) {
+        CopyProperties.BulkLoadProperties bulkLoad = properties.getBulkLoad();
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("index-");
+        taskExecutor.setConcurrencyLimit(bulkLoad.getParallelism());
+
+        BulkLoadListener listener = new BulkLoadListener(jobRepository, dataTarget, "client");
+        listener.setUnlogged(bulkLoad.isUnlogged());
+        listener.setTaskExecutor(taskExecutor);
+        listener.setMaintenanceWorkMem(bulkLoad.getMaintenanceWorkMem());
+        return listener;
+    }
+
+    @Bean
+    public CommittedWatermark clientCommittedWatermark(JobRepository jobRepository) {
+        return new CommittedWatermark(jobRepository, "step1");
+    }
+
+    @Bean
+    public SourceThrottle sourceThrottle() {
+        CopyProperties.ThrottleProperties throttle = properties.getThrottle();
+        SourceThrottle sourceThrottle = new SourceThrottle();
+        sourceThrottle.setRowsPerSecond(throttle.getRowsPerSecond());
+        sourceThrottle.setBytesPerSecond(throttle.getBytesPerSecond());
+        if (throttle.isAdaptive()) {
+            sourceThrottle.setDataSource(dataSource);
+            sourceThrottle.setSampleInterval(throttle.getSampleInterval());
+            sourceThrottle.setMaxActiveConnections(throttle.getMaxActiveConnections());
+            sourceThrottle.setMaxQueryLatency(throttle.getMaxQueryLatency());
+            sourceThrottle.setMinFactor(throttle.getMinFactor());
+            sourceThrottle.setApplicationName(throttle.getApplicationName());
+        }
+        return sourceThrottle;
+    }
+
+    @Bean(destroyMethod = "")
+    @StepScope
+    public KeyTrackingItemReader<Client> cursorItemReader(@Value("#{stepExecutionContext['minValue']}") Long minValue,
+                                                          @Value("#{stepExecutionContext['maxValue']}") Long maxValue,
+                                                          @Value("#{stepExecutionContext['clientReader.lastKey']}") Long lastKey,
+                                                          @Value(CLIENT_WATERMARK_LOWER) String lower,
+                                                          @Value(CLIENT_WATERMARK_UPPER) String upper) {
+        List<Object> arguments = new ArrayList<>(Arrays.asList(lastKey == null ? minValue : lastKey + 1, maxValue));
+        String filter = watermarkFilter(lower, upper, (name, value) -> {
+            arguments.add(value);
+            return "?";
+        });
+
+        JdbcCursorItemReader<Client> reader = new JdbcCursorItemReaderBuilder<Client>()
                 .dataSource(this.dataSource)
                 .name("clientReader")
-                .sql("SELECT * FROM CLIENT")
-                .rowMapper(new ClientRowMapper())
+                .sql("SELECT * FROM CLIENT WHERE id BETWEEN ? AND ?" + (filter.isEmpty() ? "" : " AND " + filter) + " ORDER BY id")
+                .queryArguments(arguments.toArray())
+                .fetchSize(properties.getStep2().getFetchSize())
+                .rowMapper(new ClientRowCodec())
+                .saveState(false)
+                .build();
+        // PostgreSQL only streams through a server side cursor outside of auto-commit
+        reader.setConnectionAutoCommit(false);
+        return keyTracking("clientReader", reader);
+    }
+
+    @Bean(destroyMethod = "")
+    @StepScope
+    public KeyTrackingItemReader<Client> keysetItemReader(@Value("#{stepExecutionContext['minValue']}") Long minValue,
+                                                          @Value("#{stepExecutionContext['maxValue']}") Long maxValue,
+                                                          @Value("#{stepExecutionContext['clientKeysetReader.lastKey']}") Long lastKey,
+                                                          @Value(CLIENT_WATERMARK_LOWER) String lower,
+                                                          @Value(CLIENT_WATERMARK_UPPER) String upper) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("minValue", lastKey == null ? minValue : lastKey + 1);
+        parameters.put("maxValue", maxValue);
+        String filter = watermarkFilter(lower, upper, (name, value) -> {
+            parameters.put(name, value);
+            return ":" + name;
+        });
+
+        JdbcPagingItemReader<Client> reader = new JdbcPagingItemReaderBuilder<Client>()
+                .dataSource(this.dataSource)
+                .name("clientKeysetReader")
+                .selectClause("SELECT id, firstName, lastName, email, phone")
+                .fromClause("FROM client")
+                .whereClause("id BETWEEN :minValue AND :maxValue" + (filter.isEmpty() ? "" : " AND " + filter))
+                .sortKeys(Collections.singletonMap("id", Order.ASCENDING))
+                .parameterValues(parameters)
+                .pageSize(properties.getStep2().getPageSize())
+                .rowMapper(new ClientRowCodec())
+                .saveState(false)
                 .build();
+        return keyTracking("clientKeysetReader", reader);
+    }
+
+    @Bean
+    @StepScope
+    public WatermarkFollowingItemReader<Client> followingItemReader(CommittedWatermark clientCommittedWatermark) {
+        WatermarkFollowingItemReader<Client> reader = new WatermarkFollowingItemReader<>();
+        reader.setDataSource(dataSource);
+        reader.setSelectClause("SELECT id, firstName, lastName, email, phone");
+        reader.setFromClause("FROM client");
+        reader.setKeyColumn("id");
+        reader.setRowMapper(new ClientRowCodec());
+        reader.setKey(Client::getId);
+        reader.setWatermark(clientCommittedWatermark);
+        reader.setPageSize(properties.getStep2().getPageSize());
+        return reader;
+    }
+
+    /**
+     * Saves the id of the last committed client, which a restarted partition binds as {@code <name>.lastKey} to
+     * resume right after it.
+     */
+    static KeyTrackingItemReader<Client> keyTracking(String name, ItemStreamReader<Client> delegate) {
+        KeyTrackingItemReader<Client> reader = new KeyTrackingItemReader<>();
+        reader.setName(name);
+        reader.setDelegate(delegate);
+        reader.setKey(Client::getId);
+        return reader;
+    }
+
+    private String watermarkFilter(String lower, String upper, BiFunction<String, Object, String> parameter) {
+        CopyProperties.IncrementalProperties incremental = properties.getStep2().getIncremental();
+        if (!incremental.isEnabled()) {
+            return "";
+        }
+        List<String> conditions = new ArrayList<>();
+        if (lower != null) {
+            conditions.add(incremental.getColumn() + " > CAST(" + parameter.apply("watermarkLower", lower) + " AS " + incremental.getColumnType() + ")");
+        }
+        if (upper != null) {
+            conditions.add(incremental.getColumn() + " <= CAST(" + parameter.apply("watermarkUpper", upper) + " AS " + incremental.getColumnType() + ")");
+        }
+        return String.join(" AND ", conditions);
     }
 
     @Bean
-    public FlatFileItemReader<Client> fileReader() {
-        return new FlatFileItemReaderBuilder<Client>()
+    public SynchronizedItemStreamReader<Client> fileReader() {
+        FlatFileItemReader<Client> reader = new FlatFileItemReaderBuilder<Client>()
                 .name("clientItemReader")
-                .resource(new ClassPathResource("clients_50k.csv"))
+                .resource(properties.getInputFile())
+                .saveState(false)
                 .delimited()
                 .names(new String[]{"id", "firstName", "lastName", "email", "phone"})
                 .fieldSetMapper(fieldSet -> {
@@ -80,70 +289,427 @@ public class BatchConfiguration {
                     client.setPhone(fieldSet.readString("phone"));
                     return client;
                 }).build();
+
+        SynchronizedItemStreamReader<Client> synchronizedReader = new SynchronizedItemStreamReader<>();
+        synchronizedReader.setDelegate(reader);
+        return synchronizedReader;
     }
 
     @Bean
-    public ClientUpperCaseProcessor upperCaseProcessor() {
-        return new ClientUpperCaseProcessor();
+    public CsvFilePartitioner csvFilePartitioner() {
+        CsvFilePartitioner csvFilePartitioner = new CsvFilePartitioner();
+        csvFilePartitioner.setResource(properties.getInputFile());
+        return csvFilePartitioner;
+    }
+
+    @Bean(destroyMethod = "")
+    @StepScope
+    public MappedCsvItemReader<Client> mappedFileReader(@Value("#{stepExecutionContext['fileName']}") String fileName,
+                                                        @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+                                                        @Value("#{stepExecutionContext['endOffset']}") Long endOffset) {
+        MappedCsvItemReader<Client> reader = new MappedCsvItemReader<>();
+        reader.setName("mappedClientReader");
+        reader.setFile(Paths.get(fileName));
+        reader.setStartOffset(startOffset);
+        reader.setEndOffset(endOffset);
+        reader.setRecordMapper(new ClientCsvRecordMapper());
+        return reader;
     }
 
     @Bean
-    public ClientLowerCaseProcessor lowerCaseProcessor() {
-        return new ClientLowerCaseProcessor();
+    public ClientTransformProcessor step1Processor() {
+        return new ClientTransformProcessor(properties.getStep1().getTransforms().get("client"));
     }
 
     @Bean
-    public JdbcBatchItemWriter<Client> dataSourceWriter() {
-        return new JdbcBatchItemWriterBuilder<Client>()
-                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
-                .sql("INSERT INTO client (id, firstName, lastName, email, phone) VALUES (:id, :firstName, :lastName, :email, :phone)")
-                .dataSource(dataSource)
-                .build();
+    public ClientTransformProcessor step2Processor() {
+        return new ClientTransformProcessor(properties.getStep2().getTransforms().get("client"));
     }
 
     @Bean
-    public JdbcBatchItemWriter<Client> dataTargetWriter() {
-        return new JdbcBatchItemWriterBuilder<Client>()
-                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
-                .sql("INSERT INTO client (id, firstName, lastName, email, phone) VALUES (:id, :firstName, :lastName, :email, :phone)")
-                .dataSource(dataTarget)
-                .build();
+    public ExistingIds clientExistingIds() {
+        CopyProperties.SkipExistingProperties skipExisting = properties.getStep2().getSkipExisting();
+        ExistingIds existingIds = new ExistingIds(dataTarget, "client", "id");
+        existingIds.setFetchSize(skipExisting.getFetchSize());
+        existingIds.setBloomFilterBitsPerKey(skipExisting.getBloomFilterBitsPerKey());
+        return existingIds;
+    }
+
+    ItemProcessor<Client, Client> step2ItemProcessor() {
+        if (!properties.getStep2().getSkipExisting().isEnabled()) {
+            return step2Processor();
+        }
+        // the cheap lookup first, transforms only for the rows that are copied
+        CompositeItemProcessor<Client, Client> processor = new CompositeItemProcessor<>();
+        processor.setDelegates(Arrays.asList(new ExistingIdFilterProcessor<Client>(clientExistingIds(), Client::getId), step2Processor()));
+        return processor;
+    }
+
+    @Bean
+    public ItemWriter<Client> dataSourceWriter() {
+        return clientWriter(dataSource, properties.getStep1().getWriter());
     }
 
     @Bean
-    public Job importClientJob(JobCompletionNotificationListener listener, Step step1, Step step2) {
-        return jobBuilderFactory.get("importClientJob")
+    @StepScope
+    public ItemWriter<Client> dataTargetWriter() {
+        return targetWriter(dataTarget);
+    }
+
+    /**
+     * Writes all items of a chunk to every target, see {@link FanOutItemWriter}. The datatarget comes first,
+     * written by the chunk thread with the step scoped {@code dataTargetWriter}.
+     */
+    @Bean
+    public FanOutItemWriter<Client> clientFanOutWriter(@Qualifier("dataTargetWriter") ItemWriter<Client> writer,
+                                                       @Qualifier("fanOutTargets") DataTargets fanOutTargets,
+                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, ItemWriter<? super Client>> targets = new LinkedHashMap<>();
+        targets.put("datatarget", transactional(writer, dataTarget));
+        fanOutTargets.getDataSources().forEach((name, target) -> targets.put(name, transactional(targetWriter(target), target)));
+
+        FanOutItemWriter<Client> fanOutWriter = new FanOutItemWriter<>();
+        fanOutWriter.setTargets(targets);
+        fanOutWriter.setTaskExecutor(new SimpleAsyncTaskExecutor("fan-out-"));
+        fanOutWriter.setMeterRegistry(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        return fanOutWriter;
+    }
+
+    private ItemWriter<Client> targetWriter(DataSource target) {
+        if (properties.getStep2().getIncremental().isEnabled()) {
+            if (properties.getStep2().getWriter() != WriterMode.INSERT) {
+                log.warn("COPY cannot update existing rows, incremental step2 writes with INSERT ... ON CONFLICT");
+            }
+            JdbcBatchItemWriter<Client> writer = new JdbcBatchItemWriterBuilder<Client>()
+                    .itemPreparedStatementSetter(new ClientRowCodec())
+                    .sql("INSERT INTO client (id, firstName, lastName, email, phone) VALUES (?, ?, ?, ?, ?) "
+                            + "ON CONFLICT (id) DO UPDATE SET firstName = EXCLUDED.firstName, lastName = EXCLUDED.lastName, "
+                            + "email = EXCLUDED.email, phone = EXCLUDED.phone")
+                    .dataSource(target)
+                    .build();
+            // fan-out target writers are not beans
+            writer.afterPropertiesSet();
+            return writer;
+        }
+        return clientWriter(target, properties.getStep2().getWriter());
+    }
+
+    private ItemWriter<Client> clientWriter(DataSource dataSource, WriterMode mode) {
+        if (mode == WriterMode.INSERT) {
+            JdbcBatchItemWriter<Client> writer = new JdbcBatchItemWriterBuilder<Client>()
+                    .itemPreparedStatementSetter(new ClientRowCodec())
+                    .sql("INSERT INTO client (id, firstName, lastName, email, phone) VALUES (?, ?, ?, ?, ?)")
+                    .dataSource(dataSource)
+                    .build();
+            writer.afterPropertiesSet();
+            return writer;
+        }
+        PgCopyItemWriter<Client> writer = new PgCopyItemWriter<>();
+        writer.setDataSource(dataSource);
+        writer.setTable("client");
+        writer.setColumns(ClientPgCopyRowEncoder.COLUMNS);
+        writer.setFormat(mode == WriterMode.COPY_BINARY ? PgCopyFormat.BINARY : PgCopyFormat.TEXT);
+        writer.setEncoder(new ClientPgCopyRowEncoder());
+        writer.afterPropertiesSet();
+        return writer;
+    }
+
+    @Bean
+    public CopyMetrics copyMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new CopyMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), properties.getMetrics().getLogInterval());
+    }
+
+    static <I, O> SimpleStepBuilder<I, O> withMetrics(SimpleStepBuilder<I, O> builder, StepMetricsListener listener) {
+        builder.listener((StepExecutionListener) listener);
+        builder.listener((ChunkListener) listener);
+        builder.listener((ItemReadListener<Object>) listener);
+        builder.listener((ItemProcessListener<Object, Object>) listener);
+        builder.listener((ItemWriteListener<Object>) listener);
+        return builder;
+    }
+
+    /**
+     * Chunk step builder with a fixed {@code CHUNK_SIZE}, or tuned by an {@link AdaptiveController} when
+     * {@code copy.adaptive} is enabled. The partition executor, if given, has its pool size tuned as well.
+     */
+    SimpleStepBuilder<Client, Client> chunkStep(String name, ThreadPoolTaskExecutor partitionTaskExecutor) {
+        CopyProperties.AdaptiveProperties adaptive = properties.getAdaptive();
+        if (!adaptive.isEnabled()) {
+            return stepBuilderFactory.get(name).chunk(CHUNK_SIZE);
+        }
+        AdaptiveController controller = new AdaptiveController();
+        controller.setName(name);
+        controller.setChunkSize(CHUNK_SIZE);
+        controller.setMinChunkSize(adaptive.getMinChunkSize());
+        controller.setMaxChunkSize(adaptive.getMaxChunkSize());
+        controller.setMinConcurrency(adaptive.getMinConcurrency());
+        controller.setMaxConcurrency(adaptive.getMaxConcurrency());
+        controller.setTargetLatency(adaptive.getTargetLatency());
+        controller.setWindow(adaptive.getWindow());
+        controller.setTaskExecutor(partitionTaskExecutor);
+        controller.afterPropertiesSet();
+
+        AdaptiveChunkListener listener = controller.listener();
+        SimpleStepBuilder<Client, Client> builder = stepBuilderFactory.get(name).chunk(controller.completionPolicy());
+        builder.listener((StepExecutionListener) listener);
+        builder.listener((ChunkListener) listener);
+        builder.listener((ItemWriteListener<Object>) listener);
+        return builder;
+    }
+
+    @Bean
+    public Job importClientJob(JobCompletionNotificationListener listener, Step step1, Step step2, CommittedWatermark clientCommittedWatermark) {
+        JobBuilder job = jobBuilderFactory.get("importClientJob")
                 .incrementer(new RunIdIncrementer())
                 .listener(listener)
-                .flow(step1)
-                .next(step2)
-                .end()
+                .listener(sourceThrottle());
+        FlowBuilder<FlowJobBuilder> flow;
+        if (properties.isOverlapped()) {
+            // step2 follows the rows committed by step1 while it runs
+            Flow steps = new FlowBuilder<SimpleFlow>("overlappedSteps")
+                    .split(new SimpleAsyncTaskExecutor("overlap-"))
+                    .add(new FlowBuilder<SimpleFlow>("step1Flow").start(step1).build(),
+                            new FlowBuilder<SimpleFlow>("step2Flow").start(step2).build())
+                    .build();
+            flow = job.listener(clientCommittedWatermark).start(steps);
+        } else {
+            flow = job.flow(step1).next(step2);
+        }
+        if (properties.getVerify().isEnabled()) {
+            flow.next(verify());
+        }
+        return flow.end().build();
+    }
+
+    @Bean
+    public Step verify() {
+        CopyProperties.VerifyProperties verify = properties.getVerify();
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("verify-");
+        taskExecutor.setConcurrencyLimit(verify.getConcurrency());
+
+        RangeChecksumVerifier verifier = new RangeChecksumVerifier();
+        verifier.setSource(dataSource);
+        verifier.setTarget(dataTarget);
+        verifier.setTaskExecutor(taskExecutor);
+        verifier.setTable(verify.getTable());
+        verifier.setKey(verify.getKey());
+        verifier.setExpressions(verify.getExpressions().toArray(new String[0]));
+        verifier.setGridSize(GRID_SIZE);
+        verifier.setFanout(verify.getFanout());
+        verifier.setLeafSize(verify.getLeafSize());
+        verifier.afterPropertiesSet();
+
+        VerifyTasklet tasklet = new VerifyTasklet(verifier, verify.getTable());
+        tasklet.setFailOnMismatch(verify.isFailOnMismatch());
+        return stepBuilderFactory.get("verify")
+                .tasklet(tasklet)
                 .build();
     }
 
     @Bean
-    public Step step1(@Qualifier("dataSourceWriter") JdbcBatchItemWriter<Client> writer) {
+    public Step step1(@Qualifier("dataSourceWriter") ItemWriter<Client> writer, @Qualifier("step1Worker") Step step1Worker,
+                      CommittedWatermark clientCommittedWatermark) {
+        if (properties.getStep1().getReader() == ReaderMode.MAPPED_CSV) {
+            Assert.state(!properties.isOverlapped(), "Overlapped steps need the ordered flat-file reader, set copy.step1.reader=flat-file");
+            return stepBuilderFactory.get("step1")
+                    .partitioner("step1Worker", csvFilePartitioner())
+                    .step(step1Worker)
+                    .gridSize(GRID_SIZE)
+                    .taskExecutor(partitionTaskExecutor())
+                    .build();
+        }
+
         ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
         taskExecutor.setCorePoolSize(CORE_POOL_SIZE);
         taskExecutor.setMaxPoolSize(MAX_CORE_POOL_SIZE);
         taskExecutor.afterPropertiesSet();
 
-        return stepBuilderFactory.get("step1")
-                .<Client, Client>chunk(CHUNK_SIZE)
-                .reader(fileReader())
-                .processor(upperCaseProcessor())
+        SimpleStepBuilder<Client, Client> builder = withMetrics(chunkStep("step1", null), copyMetrics(null).listener())
+                .processor(step1Processor())
+                .writer(writer);
+        builder.taskExecutor(taskExecutor);
+        if (!properties.isOverlapped()) {
+            return builder.reader(fileReader()).build();
+        }
+        CommittedKeyItemReader<Client> reader = new CommittedKeyItemReader<>();
+        reader.setDelegate(fileReader());
+        reader.setKey(Client::getId);
+        reader.setWatermark(clientCommittedWatermark);
+        reader.afterPropertiesSet();
+        builder.listener((StepExecutionListener) clientCommittedWatermark);
+        builder.listener((ChunkListener) clientCommittedWatermark);
+        return builder.reader(reader).build();
+    }
+
+    @Bean
+    public Step step1Worker(@Qualifier("dataSourceWriter") ItemWriter<Client> writer) {
+        return withMetrics(chunkStep("step1Worker", partitionTaskExecutor()), copyMetrics(null).listener())
+                .reader(mappedFileReader(null, null, null))
+                .processor(step1Processor())
                 .writer(writer)
-                .taskExecutor(taskExecutor)
                 .build();
     }
 
     @Bean
-    public Step step2(@Qualifier("dataTargetWriter") JdbcBatchItemWriter<Client> writer) {
-        return stepBuilderFactory.get("step2")
-                .<Client, Client>chunk(CHUNK_SIZE)
-                .reader(cursorItemReader())
-                .processor(lowerCaseProcessor())
-                .writer(writer)
+    public ThreadPoolTaskExecutor partitionTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(CORE_POOL_SIZE);
+        taskExecutor.setMaxPoolSize(MAX_CORE_POOL_SIZE);
+        taskExecutor.setThreadNamePrefix("partition-");
+        return taskExecutor;
+    }
+
+    @Bean
+    public Step step2(@Qualifier("step2Worker") Step step2Worker, WatermarkListener clientWatermarkListener,
+                      BulkLoadListener clientBulkLoadListener, ExistingIds clientExistingIds,
+                      @Qualifier("dataTargetWriter") ItemWriter<Client> writer, FanOutItemWriter<Client> clientFanOutWriter) {
+        if (properties.isOverlapped()) {
+            return overlappedStep2(step2Writer(writer, clientFanOutWriter), clientBulkLoadListener, clientExistingIds, clientFanOutWriter);
+        }
+        PartitionStepBuilder builder = stepBuilderFactory.get("step2")
+                .partitioner("step2Worker", partitioner(null, null))
+                .step(step2Worker)
+                .gridSize(GRID_SIZE)
+                .taskExecutor(partitionTaskExecutor());
+        if (properties.getStep2().getIncremental().isEnabled()) {
+            builder.listener(clientWatermarkListener);
+        }
+        if (properties.getBulkLoad().isEnabled()) {
+            builder.listener(clientBulkLoadListener);
+        }
+        if (properties.getStep2().getSkipExisting().isEnabled()) {
+            builder.listener(clientExistingIds);
+        }
+        if (isFanOut()) {
+            builder.listener(clientFanOutWriter.listener());
+        }
+        return builder.build();
+    }
+
+    /**
+     * step2 running next to step1: a multi-threaded chunk step whose reader follows the ids committed by step1.
+     * Not restartable from where it stopped, enable {@code copy.step2.skip-existing} to restart it.
+     */
+    private Step overlappedStep2(ItemWriter<Client> writer, BulkLoadListener clientBulkLoadListener, ExistingIds clientExistingIds,
+                                 FanOutItemWriter<Client> clientFanOutWriter) {
+        Assert.state(properties.getStep2().getMode() == StepMode.CHUNK, "Overlapped steps need copy.step2.mode=chunk");
+        Assert.state(!properties.getStep2().getIncremental().isEnabled(), "Overlapped steps cannot copy incrementally, disable copy.step2.incremental");
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(CORE_POOL_SIZE);
+        taskExecutor.setMaxPoolSize(MAX_CORE_POOL_SIZE);
+        taskExecutor.setThreadNamePrefix("step2-");
+        taskExecutor.afterPropertiesSet();
+
+        SimpleStepBuilder<Client, Client> builder = withMetrics(chunkStep("step2", null), copyMetrics(null).listener())
+                .reader(throttled(followingItemReader(null)))
+                .processor(step2ItemProcessor())
+                .writer(writer);
+        builder.taskExecutor(taskExecutor);
+        if (properties.getBulkLoad().isEnabled()) {
+            builder.listener((StepExecutionListener) clientBulkLoadListener);
+        }
+        if (properties.getStep2().getSkipExisting().isEnabled()) {
+            builder.listener((StepExecutionListener) clientExistingIds);
+        }
+        if (isFanOut()) {
+            builder.listener(clientFanOutWriter.listener());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @StepScope
+    public PgCopyPipeTasklet pipeTasklet(@Value("#{stepExecutionContext['minValue']}") Long minValue,
+                                         @Value("#{stepExecutionContext['maxValue']}") Long maxValue) {
+        PgCopyPipeTasklet tasklet = new PgCopyPipeTasklet();
+        tasklet.setSource(dataSource);
+        tasklet.setTarget(dataTarget);
+        tasklet.setTaskExecutor(new SimpleAsyncTaskExecutor("copy-out-"));
+        tasklet.setQuery("SELECT id, firstName, lastName, email, phone FROM client WHERE id BETWEEN " + minValue + " AND " + maxValue);
+        tasklet.setTable("client");
+        tasklet.setColumns(ClientPgCopyRowEncoder.COLUMNS);
+        tasklet.setFormat(PgCopyFormat.BINARY);
+        tasklet.setThrottle(sourceThrottle());
+        return tasklet;
+    }
+
+    @Bean
+    public PipelineTasklet<Client, Client> pipelineTasklet(@Qualifier("dataTargetWriter") ItemWriter<Client> writer) {
+        CopyProperties.StepProperties step2 = properties.getStep2();
+        PipelineTasklet<Client, Client> tasklet = new PipelineTasklet<>();
+        tasklet.setReader(step2Reader());
+        tasklet.setProcessor(step2ItemProcessor());
+        tasklet.setWriter(writer);
+        tasklet.setTransactionManager(new DataSourceTransactionManager(dataTarget));
+        tasklet.setTaskExecutor(new SimpleAsyncTaskExecutor("pipeline-"));
+        tasklet.setProcessors(step2.getProcessors());
+        tasklet.setWriters(step2.getWriters());
+        tasklet.setBufferSize(step2.getBufferSize());
+        tasklet.setChunkSize(CHUNK_SIZE);
+        return tasklet;
+    }
+
+    ItemReader<Client> step2Reader() {
+        return throttled(properties.getStep2().getReader() == ReaderMode.KEYSET
+                ? keysetItemReader(null, null, null, null, null)
+                : cursorItemReader(null, null, null, null, null));
+    }
+
+    private ThrottledItemReader<Client> throttled(ItemReader<Client> delegate) {
+        ThrottledItemReader<Client> reader = new ThrottledItemReader<>();
+        reader.setDelegate(delegate);
+        reader.setThrottle(sourceThrottle());
+        reader.setSize(client -> Long.BYTES + length(client.getFirstName()) + length(client.getLastName())
+                + length(client.getEmail()) + length(client.getPhone()));
+        reader.afterPropertiesSet();
+        return reader;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    @Bean
+    public Step step2Worker(@Qualifier("dataTargetWriter") ItemWriter<Client> writer, FanOutItemWriter<Client> clientFanOutWriter) {
+        Assert.state(!isFanOut() || properties.getStep2().getMode() == StepMode.CHUNK, "Fan-out needs copy.step2.mode=chunk");
+        if (properties.getStep2().getMode() == StepMode.PIPE) {
+            Assert.state(!properties.getStep2().getIncremental().isEnabled(), "Pipe mode cannot upsert, disable copy.step2.incremental");
+            Assert.state(!properties.getStep2().getSkipExisting().isEnabled(), "Pipe mode cannot skip rows, disable copy.step2.skip-existing");
+            return stepBuilderFactory.get("step2Worker")
+                    .listener(copyMetrics(null).listener())
+                    .tasklet(pipeTasklet(null, null))
+                    .build();
+        }
+        if (properties.getStep2().getMode() == StepMode.PIPELINE) {
+            return stepBuilderFactory.get("step2Worker")
+                    .listener(copyMetrics(null).listener())
+                    .tasklet(pipelineTasklet(writer))
+                    .build();
+        }
+        StepMetricsListener metrics = copyMetrics(null).listener(item -> ((Client) item).getId());
+        return withMetrics(chunkStep("step2Worker", partitionTaskExecutor()), metrics)
+                .reader(step2Reader())
+                .processor(step2ItemProcessor())
+                .writer(step2Writer(writer, clientFanOutWriter))
                 .build();
     }
+
+    boolean isFanOut() {
+        return !properties.getFanOut().getTargets().isEmpty();
+    }
+
+    ItemWriter<Client> step2Writer(ItemWriter<Client> writer, FanOutItemWriter<Client> clientFanOutWriter) {
+        return isFanOut() ? clientFanOutWriter : transactional(writer, dataTarget);
+    }
+
+    /**
+     * Writes each chunk in its own target transaction, the step transaction is the one of the source.
+     */
+    private TransactionalItemWriter<Client> transactional(ItemWriter<Client> writer, DataSource target) {
+        TransactionalItemWriter<Client> transactionalWriter = new TransactionalItemWriter<>();
+        transactionalWriter.setDelegate(writer);
+        transactionalWriter.setTransactionManager(new DataSourceTransactionManager(target));
+        transactionalWriter.afterPropertiesSet();
+        return transactionalWriter;
+    }
 }
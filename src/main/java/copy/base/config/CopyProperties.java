@@ -0,0 +1,175 @@
+package copy.base.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@ConfigurationProperties("copy")
+public class CopyProperties {
+
+    @Setter
+    private Resource inputFile = new ClassPathResource("clients_50k.csv");
+
+    @Setter
+    private boolean restart;
+
+    @Setter
+    private boolean overlapped;
+
+    @Setter
+    private boolean exitOnCompletion;
+
+    private final StepProperties step1 = new StepProperties();
+    private final StepProperties step2 = new StepProperties(ReaderMode.CURSOR);
+    private final SchemaProperties schema = new SchemaProperties();
+    private final MetricsProperties metrics = new MetricsProperties();
+    private final VerifyProperties verify = new VerifyProperties();
+    private final AdaptiveProperties adaptive = new AdaptiveProperties();
+    private final BulkLoadProperties bulkLoad = new BulkLoadProperties();
+    private final ThrottleProperties throttle = new ThrottleProperties();
+    private final FanOutProperties fanOut = new FanOutProperties();
+    private final StagingProperties staging = new StagingProperties();
+    private final PoolProperties pool = new PoolProperties();
+
+    @Getter
+    @Setter
+    public static class StepProperties {
+        private ReaderMode reader = ReaderMode.FLAT_FILE;
+        private WriterMode writer = WriterMode.INSERT;
+        private StepMode mode = StepMode.CHUNK;
+        private int fetchSize = BatchConfiguration.CHUNK_SIZE;
+        private int pageSize = BatchConfiguration.CHUNK_SIZE;
+        private int processors = 2;
+        private int writers = 2;
+        private int bufferSize = 4 * BatchConfiguration.CHUNK_SIZE;
+        private Map<String, Map<String, String>> transforms = new LinkedHashMap<>();
+        private final IncrementalProperties incremental = new IncrementalProperties();
+        private final SkipExistingProperties skipExisting = new SkipExistingProperties();
+
+        public StepProperties() {
+        }
+
+        public StepProperties(ReaderMode reader) {
+            this.reader = reader;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class IncrementalProperties {
+        private boolean enabled;
+        private String column = "id";
+        private String columnType = "bigint";
+    }
+
+    @Getter
+    @Setter
+    public static class SkipExistingProperties {
+        private boolean enabled;
+        private int fetchSize = 10_000;
+        private int bloomFilterBitsPerKey;
+    }
+
+    @Getter
+    @Setter
+    public static class SchemaProperties {
+        private boolean enabled;
+        private String name = "public";
+        private String include = ".*";
+        private String exclude = "batch_.*";
+        private int concurrency = BatchConfiguration.CORE_POOL_SIZE;
+        private int chunkSize = BatchConfiguration.CHUNK_SIZE;
+        private DataSize chunkBytes = DataSize.ofMegabytes(16);
+        private int wideFetchSize = 16;
+        private WriterMode writer = WriterMode.INSERT;
+        private Map<String, Map<String, String>> transforms = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class MetricsProperties {
+        private Duration logInterval = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class VerifyProperties {
+        private boolean enabled;
+        private String table = "client";
+        private String key = "id";
+        private List<String> expressions = new ArrayList<>(Arrays.asList("id", "lower(firstName)", "lower(lastName)", "lower(email)", "phone"));
+        private int concurrency = BatchConfiguration.CORE_POOL_SIZE;
+        private int fanout = 16;
+        private long leafSize = 256;
+        private boolean failOnMismatch = true;
+    }
+
+    @Getter
+    @Setter
+    public static class AdaptiveProperties {
+        private boolean enabled;
+        private int minChunkSize = 256;
+        private int maxChunkSize = 8 * BatchConfiguration.CHUNK_SIZE;
+        private int minConcurrency = 1;
+        private int maxConcurrency = 8;
+        private Duration targetLatency = Duration.ofSeconds(1);
+        private int window = 8;
+    }
+
+    @Getter
+    @Setter
+    public static class BulkLoadProperties {
+        private boolean enabled;
+        private boolean unlogged;
+        private int parallelism = BatchConfiguration.CORE_POOL_SIZE;
+        private String maintenanceWorkMem;
+    }
+
+    @Getter
+    @Setter
+    public static class StagingProperties {
+        private boolean enabled;
+        private Path directory = Paths.get("staging");
+        private int compressionLevel = 1;
+        private int concurrency = BatchConfiguration.CORE_POOL_SIZE;
+    }
+
+    @Getter
+    @Setter
+    public static class PoolProperties {
+        private boolean sizedToConcurrency;
+    }
+
+    @Getter
+    @Setter
+    public static class FanOutProperties {
+        private Map<String, DataSourceProperties> targets = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class ThrottleProperties {
+        private long rowsPerSecond;
+        private long bytesPerSecond;
+        private boolean adaptive;
+        private Duration sampleInterval = Duration.ofSeconds(5);
+        private int maxActiveConnections = 16;
+        private Duration maxQueryLatency = Duration.ofMillis(500);
+        private double minFactor = 0.05;
+        private String applicationName = "copy-base";
+    }
+}
@@ -1,5 +1,6 @@
 package copy.base.config;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -7,6 +8,7 @@ import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -18,11 +20,6 @@ import javax.sql.DataSource;
 
 @Configuration
 @EnableTransactionManagement
-@EnableJpaRepositories(
-        transactionManagerRef = "datasourceTransactionManager",
-        entityManagerFactoryRef = "datasourceEntityManagerFactory",
-        basePackages = {"copy.base.domain.datasource"}
-)
 public class DataSourceConfiguration {
 
     @Primary
@@ -34,23 +31,41 @@ public class DataSourceConfiguration {
 
     @Primary
     @Bean(name = "datasource")
-    public DataSource datasource(@Qualifier("datasourceProperties") DataSourceProperties properties) {
-        return properties.initializeDataSourceBuilder().build();
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource datasource(@Qualifier("datasourceProperties") DataSourceProperties properties, CopyProperties copyProperties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (copyProperties.getPool().isSizedToConcurrency()) {
+            dataSource.setMaximumPoolSize(PoolSizing.sourceConnections(copyProperties));
+        }
+        return dataSource;
     }
 
-    @Primary
-    @Bean(name = "datasourceEntityManagerFactory")
-    public LocalContainerEntityManagerFactoryBean datasourceEntityManagerFactoryBean(EntityManagerFactoryBuilder builder, @Qualifier("datasource") DataSource dataSource) {
-        return builder.dataSource(dataSource)
-                .packages("copy.base.domain.datasource")
-                .persistenceUnit("datasource")
-                .build();
-    }
+    /**
+     * JPA of the datasource, left out by the {@code lean} profile since the copy only uses JDBC.
+     */
+    @Configuration
+    @Profile("!lean")
+    @EnableJpaRepositories(
+            transactionManagerRef = "datasourceTransactionManager",
+            entityManagerFactoryRef = "datasourceEntityManagerFactory",
+            basePackages = {"copy.base.domain.datasource"}
+    )
+    static class Jpa {
 
-    @Primary
-    @Bean(name = "datasourceTransactionManager")
-    @ConfigurationProperties("spring.jpa")
-    public PlatformTransactionManager transactionManager(@Qualifier("datasourceEntityManagerFactory") EntityManagerFactory entityManagerFactory) {
-        return new JpaTransactionManager(entityManagerFactory);
+        @Primary
+        @Bean(name = "datasourceEntityManagerFactory")
+        public LocalContainerEntityManagerFactoryBean datasourceEntityManagerFactoryBean(EntityManagerFactoryBuilder builder, @Qualifier("datasource") DataSource dataSource) {
+            return builder.dataSource(dataSource)
+                    .packages("copy.base.domain.datasource")
+                    .persistenceUnit("datasource")
+                    .build();
+        }
+
+        @Primary
+        @Bean(name = "datasourceTransactionManager")
+        @ConfigurationProperties("spring.jpa")
+        public PlatformTransactionManager transactionManager(@Qualifier("datasourceEntityManagerFactory") EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
     }
 }
@@ -1,12 +1,18 @@
 package copy.base.config;
 
+import copy.base.domain.datatarget.DataTargets;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -15,14 +21,11 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Configuration
 @EnableTransactionManagement
-@EnableJpaRepositories(
-        transactionManagerRef = "datatargetTransactionManager",
-        entityManagerFactoryRef = "datatargetEntityManagerFactory",
-        basePackages = {"copy.base.domain.datatarget"}
-)
 public class DataTargetConfiguration {
 
     @Bean(name = "datatargetProperties")
@@ -32,23 +35,61 @@ public class DataTargetConfiguration {
     }
 
     @Bean(name = "datatarget")
-    public DataSource datatarget(@Qualifier("datatargetProperties") DataSourceProperties properties) {
-        return properties.initializeDataSourceBuilder().build();
+    @ConfigurationProperties("postgres.datatarget.hikari")
+    public HikariDataSource datatarget(@Qualifier("datatargetProperties") DataSourceProperties properties, CopyProperties copyProperties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (copyProperties.getPool().isSizedToConcurrency()) {
+            dataSource.setMaximumPoolSize(PoolSizing.targetConnections(copyProperties));
+        }
+        return dataSource;
     }
 
-    @Primary
-    @Bean(name = "datatargetEntityManagerFactory")
-    public LocalContainerEntityManagerFactoryBean datatargetEntityManagerFactoryBean(EntityManagerFactoryBuilder builder, @Qualifier("datatarget") DataSource datatarget) {
-        return builder.dataSource(datatarget)
-                .packages("copy.base.domain.datatarget")
-                .persistenceUnit("datatarget")
-                .build();
+    /**
+     * Additional targets of {@code copy.fan-out.targets}, written next to the datatarget. Their pools bind
+     * {@code copy.fan-out.targets.<name>.hikari} and are sized like the datatarget's, as every target takes the same
+     * writes.
+     */
+    @Bean(name = "fanOutTargets")
+    public DataTargets fanOutTargets(CopyProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        properties.getFanOut().getTargets().forEach((name, target) -> {
+            HikariDataSource dataSource = target.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            binder.bind("copy.fan-out.targets." + name + ".hikari", Bindable.ofInstance(dataSource));
+            if (properties.getPool().isSizedToConcurrency()) {
+                dataSource.setMaximumPoolSize(PoolSizing.targetConnections(properties));
+            }
+            dataSources.put(name, dataSource);
+        });
+        return new DataTargets(dataSources);
     }
 
-    @Primary
-    @Bean(name = "datatargetTransactionManager")
-    @ConfigurationProperties("postgres.jpa")
-    public PlatformTransactionManager transactionManager(@Qualifier("datatargetEntityManagerFactory") EntityManagerFactory entityManagerFactory) {
-        return new JpaTransactionManager(entityManagerFactory);
+    /**
+     * JPA of the datatarget, left out by the {@code lean} profile since the copy only uses JDBC.
+     */
+    @Configuration
+    @Profile("!lean")
+    @EnableJpaRepositories(
+            transactionManagerRef = "datatargetTransactionManager",
+            entityManagerFactoryRef = "datatargetEntityManagerFactory",
+            basePackages = {"copy.base.domain.datatarget"}
+    )
+    static class Jpa {
+
+        @Primary
+        @Bean(name = "datatargetEntityManagerFactory")
+        public LocalContainerEntityManagerFactoryBean datatargetEntityManagerFactoryBean(EntityManagerFactoryBuilder builder, @Qualifier("datatarget") DataSource datatarget) {
+            return builder.dataSource(datatarget)
+                    .packages("copy.base.domain.datatarget")
+                    .persistenceUnit("datatarget")
+                    .build();
+        }
+
+        @Primary
+        @Bean(name = "datatargetTransactionManager")
+        @ConfigurationProperties("postgres.jpa")
+        public PlatformTransactionManager transactionManager(@Qualifier("datatargetEntityManagerFactory") EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
     }
 }
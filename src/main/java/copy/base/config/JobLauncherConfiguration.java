@@ -0,0 +1,34 @@
+package copy.base.config;
+
+import copy.base.util.RestartingJobLauncherCommandLineRunner;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.batch.JobLauncherCommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * Replaces the job launcher of Spring Boot to also restart the last failed execution, with
+ * {@code --copy.restart=true} on the command line.
+ */
+@Configuration
+public class JobLauncherConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.batch.job", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public JobLauncherCommandLineRunner jobLauncherCommandLineRunner(JobLauncher jobLauncher, JobExplorer jobExplorer,
+                                                                     JobRepository jobRepository, BatchProperties batchProperties,
+                                                                     CopyProperties properties) {
+        RestartingJobLauncherCommandLineRunner runner = new RestartingJobLauncherCommandLineRunner(jobLauncher, jobExplorer, jobRepository);
+        String jobNames = batchProperties.getJob().getNames();
+        if (StringUtils.hasText(jobNames)) {
+            runner.setJobNames(jobNames);
+        }
+        runner.setRestart(properties.isRestart());
+        return runner;
+    }
+}
@@ -0,0 +1,58 @@
+package copy.base.config;
+
+/**
+ * Connections the jobs hold at most at once on each database, used to size the pools with
+ * {@code copy.pool.sized-to-concurrency}. A partition holds a source connection for its reader and one for the
+ * chunk transaction and job repository, and a target connection per writing thread. Two connections on top cover
+ * the job repository outside of chunks and the listeners querying before and after the steps.
+ */
+final class PoolSizing {
+
+    private static final int RESERVE = 2;
+
+    private PoolSizing() {
+    }
+
+    static int sourceConnections(CopyProperties properties) {
+        int concurrency = partitions(properties);
+        if (properties.isOverlapped()) {
+            concurrency += BatchConfiguration.CORE_POOL_SIZE;
+        }
+        if (properties.getSchema().isEnabled()) {
+            concurrency = Math.max(concurrency, properties.getSchema().getConcurrency());
+        }
+        if (properties.getStaging().isEnabled()) {
+            concurrency = Math.max(concurrency, properties.getStaging().getConcurrency());
+        }
+        if (properties.getVerify().isEnabled()) {
+            concurrency = Math.max(concurrency, properties.getVerify().getConcurrency());
+        }
+        return 2 * concurrency + RESERVE;
+    }
+
+    static int targetConnections(CopyProperties properties) {
+        int writers = properties.getStep2().getMode() == StepMode.PIPELINE ? properties.getStep2().getWriters() : 1;
+        int concurrency = partitions(properties) * writers;
+        if (properties.getSchema().isEnabled()) {
+            concurrency = Math.max(concurrency, properties.getSchema().getConcurrency());
+        }
+        if (properties.getStaging().isEnabled()) {
+            concurrency = Math.max(concurrency, properties.getStaging().getConcurrency());
+        }
+        if (properties.getBulkLoad().isEnabled()) {
+            concurrency = Math.max(concurrency, properties.getBulkLoad().getParallelism());
+        }
+        if (properties.getVerify().isEnabled()) {
+            concurrency = Math.max(concurrency, properties.getVerify().getConcurrency());
+        }
+        return concurrency + RESERVE;
+    }
+
+    /**
+     * Partitions of step2 running at once: the core size of the partition executor, as its queue is unbounded, or
+     * the most the adaptive controller raises it to.
+     */
+    private static int partitions(CopyProperties properties) {
+        return properties.getAdaptive().isEnabled() ? properties.getAdaptive().getMaxConcurrency() : BatchConfiguration.CORE_POOL_SIZE;
+    }
+}
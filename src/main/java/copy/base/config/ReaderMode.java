@@ -0,0 +1,8 @@
+package copy.base.config;
+
+public enum ReaderMode {
+    FLAT_FILE,
+    MAPPED_CSV,
+    CURSOR,
+    KEYSET
+}
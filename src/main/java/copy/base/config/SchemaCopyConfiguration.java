@@ -0,0 +1,217 @@
+package copy.base.config;
+
+import copy.base.domain.datasource.SourceThrottle;
+import copy.base.domain.datasource.ThrottledItemReader;
+import copy.base.domain.datatarget.PgCopyFormat;
+import copy.base.domain.datatarget.PgCopyItemWriter;
+import copy.base.domain.datatarget.TransactionalItemWriter;
+import copy.base.domain.schema.ColumnIndexPgCopyRowEncoder;
+import copy.base.domain.schema.ColumnIndexPreparedStatementSetter;
+import copy.base.domain.schema.ColumnIndexRowMapper;
+import copy.base.domain.schema.ColumnMetadata;
+import copy.base.domain.schema.LargeObjectCopyingItemWriter;
+import copy.base.domain.schema.SchemaIntrospector;
+import copy.base.domain.schema.TableDependencyOrder;
+import copy.base.domain.schema.TableMetadata;
+import copy.base.domain.transform.RowTransformProcessor;
+import copy.base.util.ByteBudgetCompletionPolicy;
+import copy.base.util.CopyMetrics;
+import copy.base.util.JobCompletionNotificationListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Copies every table of a schema without entity specific code. Tables are discovered through the JDBC metadata
+ * of the datasource and copied as generic rows, level by level in foreign key order, with the tables of one level
+ * copied in parallel. Enabled with {@code copy.schema.enabled=true}; select the job with
+ * {@code spring.batch.job.names=copySchemaJob}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "copy.schema", name = "enabled", havingValue = "true")
+public class SchemaCopyConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaCopyConfiguration.class);
+
+    private final JobBuilderFactory jobBuilderFactory;
+    private final StepBuilderFactory stepBuilderFactory;
+    private final DataSource dataSource;
+    private final DataSource dataTarget;
+    private final CopyProperties.SchemaProperties properties;
+    private final CopyMetrics metrics;
+    private final SourceThrottle throttle;
+
+    public SchemaCopyConfiguration(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, @Qualifier("datasource") DataSource dataSource, @Qualifier("datatarget") DataSource datatarget, CopyProperties properties, CopyMetrics metrics, SourceThrottle throttle) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.dataSource = dataSource;
+        this.dataTarget = datatarget;
+        this.properties = properties.getSchema();
+        this.metrics = metrics;
+        this.throttle = throttle;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor schemaTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(properties.getConcurrency());
+        taskExecutor.setMaxPoolSize(properties.getConcurrency());
+        taskExecutor.setThreadNamePrefix("table-");
+        return taskExecutor;
+    }
+
+    @Bean
+    public Job copySchemaJob(JobCompletionNotificationListener listener) throws MetaDataAccessException {
+        SchemaIntrospector introspector = new SchemaIntrospector(dataSource);
+        introspector.setInclude(properties.getInclude());
+        introspector.setExclude(properties.getExclude());
+        List<List<TableMetadata>> levels = TableDependencyOrder.levels(introspector.introspect(properties.getName()));
+        if (levels.isEmpty()) {
+            throw new IllegalStateException("No tables to copy found in schema " + properties.getName());
+        }
+
+        FlowBuilder<SimpleFlow> flowBuilder = new FlowBuilder<>("copySchemaFlow");
+        for (int i = 0; i < levels.size(); i++) {
+            List<TableMetadata> level = levels.get(i);
+            log.info("Level {}: {}", i, level.stream().map(TableMetadata::getName).collect(Collectors.joining(", ")));
+
+            List<Flow> tableFlows = new ArrayList<>();
+            for (TableMetadata table : level) {
+                tableFlows.add(new FlowBuilder<SimpleFlow>(table.getName() + "Flow").start(tableStep(table)).build());
+            }
+            Flow levelFlow = new FlowBuilder<SimpleFlow>("level" + i)
+                    .split(schemaTaskExecutor())
+                    .add(tableFlows.toArray(new Flow[0]))
+                    .build();
+            if (i == 0) {
+                flowBuilder.start(levelFlow);
+            } else {
+                flowBuilder.next(levelFlow);
+            }
+        }
+
+        return jobBuilderFactory.get("copySchemaJob")
+                .incrementer(new RunIdIncrementer())
+                .listener(listener)
+                .listener(throttle)
+                .start(flowBuilder.build())
+                .end()
+                .build();
+    }
+
+    private Step tableStep(TableMetadata table) {
+        String columns = String.join(", ", table.getQuotedColumnNames());
+        String orderBy = table.getPrimaryKey().isEmpty() ? "" : " ORDER BY " + table.getPrimaryKey().stream()
+                .map(TableMetadata::quote)
+                .collect(Collectors.joining(", "));
+
+        JdbcCursorItemReader<Object[]> reader = new JdbcCursorItemReaderBuilder<Object[]>()
+                .dataSource(dataSource)
+                .name(table.getName() + "Reader")
+                .sql("SELECT " + columns + " FROM " + table.getQualifiedName() + orderBy)
+                // the driver holds whole rows of a fetch in memory, wide values included
+                .fetchSize(table.getColumns().stream().anyMatch(ColumnMetadata::isWide) ? properties.getWideFetchSize() : properties.getChunkSize())
+                .rowMapper(new ColumnIndexRowMapper(table.getColumns()))
+                .build();
+        reader.setConnectionAutoCommit(false);
+        ThrottledItemReader<Object[]> throttledReader = new ThrottledItemReader<>();
+        throttledReader.setDelegate(reader);
+        throttledReader.setThrottle(throttle);
+        throttledReader.setSize(ColumnIndexRowMapper::size);
+        throttledReader.afterPropertiesSet();
+
+        ByteBudgetCompletionPolicy<Object[]> completionPolicy = new ByteBudgetCompletionPolicy<>(
+                properties.getChunkBytes().toBytes(), properties.getChunkSize(), ColumnIndexRowMapper::size);
+        // not "copy:", a colon separates the step from the partition in the metrics
+        SimpleStepBuilder<Object[], Object[]> builder = stepBuilderFactory.get("copy-" + table.getName())
+                .chunk(completionPolicy);
+        builder.listener((ItemReadListener<Object[]>) completionPolicy);
+        return BatchConfiguration.withMetrics(builder, metrics.listener())
+                .reader(throttledReader)
+                .processor(tableProcessor(table))
+                .writer(tableWriter(table))
+                .build();
+    }
+
+    private ItemProcessor<Object[], Object[]> tableProcessor(TableMetadata table) {
+        Map<String, String> transforms = properties.getTransforms().entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(table.getName()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(Collections.emptyMap());
+        return transforms.isEmpty() ? null : new RowTransformProcessor(table, transforms);
+    }
+
+    private ItemWriter<Object[]> tableWriter(TableMetadata table) {
+        int[] largeObjects = IntStream.range(0, table.getColumns().size())
+                .filter(i -> table.getColumns().get(i).isLargeObject())
+                .toArray();
+        if (largeObjects.length == 0) {
+            return rowWriter(table);
+        }
+        LargeObjectCopyingItemWriter largeObjectWriter = new LargeObjectCopyingItemWriter();
+        largeObjectWriter.setSource(dataSource);
+        largeObjectWriter.setTarget(dataTarget);
+        largeObjectWriter.setDelegate(rowWriter(table));
+        largeObjectWriter.setColumns(largeObjects);
+        largeObjectWriter.afterPropertiesSet();
+        // the copied objects are committed together with the rows referring to them
+        TransactionalItemWriter<Object[]> writer = new TransactionalItemWriter<>();
+        writer.setDelegate(largeObjectWriter);
+        writer.setTransactionManager(new DataSourceTransactionManager(dataTarget));
+        writer.afterPropertiesSet();
+        return writer;
+    }
+
+    private ItemWriter<Object[]> rowWriter(TableMetadata table) {
+        switch (properties.getWriter()) {
+            case INSERT:
+                String placeholders = String.join(", ", Collections.nCopies(table.getColumns().size(), "?"));
+                return new JdbcBatchItemWriterBuilder<Object[]>()
+                        .dataSource(dataTarget)
+                        .sql("INSERT INTO " + table.getQualifiedName() + " (" + String.join(", ", table.getQuotedColumnNames()) + ") VALUES (" + placeholders + ")")
+                        .itemPreparedStatementSetter(new ColumnIndexPreparedStatementSetter(table.getColumns()))
+                        .build();
+            case COPY_TEXT:
+                PgCopyItemWriter<Object[]> writer = new PgCopyItemWriter<>();
+                writer.setDataSource(dataTarget);
+                writer.setTable(table.getQualifiedName());
+                writer.setColumns(table.getQuotedColumnNames());
+                writer.setFormat(PgCopyFormat.TEXT);
+                writer.setEncoder(new ColumnIndexPgCopyRowEncoder());
+                writer.afterPropertiesSet();
+                return writer;
+            default:
+                throw new IllegalStateException("Writer " + properties.getWriter() + " is not supported for generic rows");
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package copy.base.config;
+
+import copy.base.domain.datasource.Client;
+import copy.base.domain.datasource.KeyTrackingItemReader;
+import copy.base.domain.datasource.SourceThrottle;
+import copy.base.domain.datatarget.BulkLoadListener;
+import copy.base.domain.datatarget.FanOutItemWriter;
+import copy.base.domain.index.ExistingIds;
+import copy.base.domain.staging.ClientStagingCodec;
+import copy.base.domain.staging.StagingFileItemReader;
+import copy.base.domain.staging.StagingFileItemWriter;
+import copy.base.domain.staging.StagingFilePartitioner;
+import copy.base.domain.staging.StagingFormat;
+import copy.base.util.CopyMetrics;
+import copy.base.util.JobCompletionNotificationListener;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.step.builder.PartitionStepBuilder;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.file.Paths;
+
+/**
+ * Decouples reading the source from writing the targets through staging files. {@code exportClientJob} reads the
+ * partitions of the client table, as step2 does, into one compressed and checksummed file each, see
+ * {@link StagingFormat}. {@code replayClientJob} loads every file of the staging directory into the targets in
+ * parallel, with the processing and writers of step2, and never reads the source; it may run at any time after an
+ * export, as often as needed. Enabled with {@code copy.staging.enabled=true}; select the job with
+ * {@code spring.batch.job.names}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "copy.staging", name = "enabled", havingValue = "true")
+public class StagingConfiguration {
+
+    private final JobBuilderFactory jobBuilderFactory;
+    private final StepBuilderFactory stepBuilderFactory;
+    private final BatchConfiguration batch;
+    private final CopyProperties properties;
+    private final CopyMetrics metrics;
+
+    public StagingConfiguration(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, BatchConfiguration batch, CopyProperties properties, CopyMetrics metrics) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.batch = batch;
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    @Bean
+    public Job exportClientJob(JobCompletionNotificationListener listener, SourceThrottle sourceThrottle,
+                               @Qualifier("exportWorker") Step exportWorker) {
+        // a restart skips the completed cleanup and resumes the partitions in their files
+        Step cleanup = stepBuilderFactory.get("exportCleanup")
+                .tasklet((contribution, chunkContext) -> {
+                    StagingFormat.clear(properties.getStaging().getDirectory());
+                    return RepeatStatus.FINISHED;
+                })
+                .build();
+        Step export = stepBuilderFactory.get("export")
+                .partitioner("exportWorker", batch.partitioner(null, null))
+                .step(exportWorker)
+                .gridSize(BatchConfiguration.GRID_SIZE)
+                .taskExecutor(batch.partitionTaskExecutor())
+                .build();
+        return jobBuilderFactory.get("exportClientJob")
+                .incrementer(new RunIdIncrementer())
+                .listener(listener)
+                .listener(sourceThrottle)
+                .start(cleanup)
+                .next(export)
+                .build();
+    }
+
+    @Bean
+    public Step exportWorker() {
+        return BatchConfiguration.withMetrics(batch.chunkStep("exportWorker", batch.partitionTaskExecutor()), metrics.listener(item -> ((Client) item).getId()))
+                .reader(batch.step2Reader())
+                .writer(stagingFileWriter(null))
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public StagingFileItemWriter<Client> stagingFileWriter(@Value("#{stepExecutionContext['minValue']}") Long minValue) {
+        StagingFileItemWriter<Client> writer = new StagingFileItemWriter<>();
+        writer.setName("stagingWriter");
+        writer.setFile(properties.getStaging().getDirectory().resolve(String.format("client-%020d%s", minValue, StagingFormat.EXTENSION)));
+        writer.setCodec(new ClientStagingCodec());
+        writer.setKey(Client::getId);
+        writer.setCompressionLevel(properties.getStaging().getCompressionLevel());
+        return writer;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor replayTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(properties.getStaging().getConcurrency());
+        taskExecutor.setMaxPoolSize(properties.getStaging().getConcurrency());
+        taskExecutor.setThreadNamePrefix("replay-");
+        return taskExecutor;
+    }
+
+    @Bean
+    public Job replayClientJob(JobCompletionNotificationListener listener, @Qualifier("replayWorker") Step replayWorker,
+                               BulkLoadListener clientBulkLoadListener, ExistingIds clientExistingIds,
+                               FanOutItemWriter<Client> clientFanOutWriter) {
+        StagingFilePartitioner partitioner = new StagingFilePartitioner();
+        partitioner.setDirectory(properties.getStaging().getDirectory());
+        PartitionStepBuilder builder = stepBuilderFactory.get("replay")
+                .partitioner("replayWorker", partitioner)
+                .step(replayWorker)
+                .taskExecutor(replayTaskExecutor());
+        if (properties.getBulkLoad().isEnabled()) {
+            builder.listener(clientBulkLoadListener);
+        }
+        if (properties.getStep2().getSkipExisting().isEnabled()) {
+            builder.listener(clientExistingIds);
+        }
+        if (batch.isFanOut()) {
+            builder.listener(clientFanOutWriter.listener());
+        }
+        return jobBuilderFactory.get("replayClientJob")
+                .incrementer(new RunIdIncrementer())
+                .listener(listener)
+                .start(builder.build())
+                .build();
+    }
+
+    @Bean
+    public Step replayWorker(@Qualifier("dataTargetWriter") ItemWriter<Client> writer, FanOutItemWriter<Client> clientFanOutWriter) {
+        return BatchConfiguration.withMetrics(batch.chunkStep("replayWorker", replayTaskExecutor()), metrics.listener(item -> ((Client) item).getId()))
+                .reader(stagingFileReader(null, null))
+                .processor(batch.step2ItemProcessor())
+                .writer(batch.step2Writer(writer, clientFanOutWriter))
+                .build();
+    }
+
+    @Bean(destroyMethod = "")
+    @StepScope
+    public KeyTrackingItemReader<Client> stagingFileReader(@Value("#{stepExecutionContext['fileName']}") String fileName,
+                                                           @Value("#{stepExecutionContext['stagingReader.lastKey']}") Long lastKey) {
+        StagingFileItemReader<Client> reader = new StagingFileItemReader<>();
+        reader.setFile(Paths.get(fileName));
+        reader.setCodec(new ClientStagingCodec());
+        reader.setKey(Client::getId);
+        reader.setStartAfter(lastKey);
+        return BatchConfiguration.keyTracking("stagingReader", reader);
+    }
+}
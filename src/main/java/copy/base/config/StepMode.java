@@ -0,0 +1,7 @@
+package copy.base.config;
+
+public enum StepMode {
+    CHUNK,
+    PIPE,
+    PIPELINE
+}
@@ -0,0 +1,7 @@
+package copy.base.config;
+
+public enum WriterMode {
+    INSERT,
+    COPY_TEXT,
+    COPY_BINARY
+}
@@ -0,0 +1,195 @@
+package copy.base.domain.codec;
+
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Reads and binds the columns of a bean with one typed accessor per column, registered by subclasses in select
+ * list order. As a {@link RowMapper} the ordinals of the columns are resolved by name from the
+ * {@link ResultSetMetaData} once per result set, then every row is read by index. As an
+ * {@link ItemPreparedStatementSetter} the columns are bound to the parameters in registration order. Numeric
+ * columns are read and bound with the primitive getters and setters of the driver.
+ */
+public abstract class RowCodec<T> implements RowMapper<T>, ItemPreparedStatementSetter<T> {
+
+    private final Supplier<T> factory;
+
+    private final List<Column<T>> columns = new ArrayList<>();
+
+    private volatile Ordinals ordinals;
+
+    protected RowCodec(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    protected final void longColumn(String name, Function<T, Long> getter, ObjLongConsumer<T> setter) {
+        columns.add(new Column<T>(name) {
+            @Override
+            void read(ResultSet resultSet, int index, T item) throws SQLException {
+                long value = resultSet.getLong(index);
+                if (value != 0 || !resultSet.wasNull()) {
+                    setter.accept(item, value);
+                }
+            }
+
+            @Override
+            void bind(PreparedStatement ps, int index, T item) throws SQLException {
+                Long value = getter.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.BIGINT);
+                } else {
+                    ps.setLong(index, value);
+                }
+            }
+        });
+    }
+
+    protected final void intColumn(String name, Function<T, Integer> getter, ObjIntConsumer<T> setter) {
+        columns.add(new Column<T>(name) {
+            @Override
+            void read(ResultSet resultSet, int index, T item) throws SQLException {
+                int value = resultSet.getInt(index);
+                if (value != 0 || !resultSet.wasNull()) {
+                    setter.accept(item, value);
+                }
+            }
+
+            @Override
+            void bind(PreparedStatement ps, int index, T item) throws SQLException {
+                Integer value = getter.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.INTEGER);
+                } else {
+                    ps.setInt(index, value);
+                }
+            }
+        });
+    }
+
+    protected final void doubleColumn(String name, Function<T, Double> getter, ObjDoubleConsumer<T> setter) {
+        columns.add(new Column<T>(name) {
+            @Override
+            void read(ResultSet resultSet, int index, T item) throws SQLException {
+                double value = resultSet.getDouble(index);
+                if (value != 0 || !resultSet.wasNull()) {
+                    setter.accept(item, value);
+                }
+            }
+
+            @Override
+            void bind(PreparedStatement ps, int index, T item) throws SQLException {
+                Double value = getter.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.DOUBLE);
+                } else {
+                    ps.setDouble(index, value);
+                }
+            }
+        });
+    }
+
+    protected final void stringColumn(String name, Function<T, String> getter, BiConsumer<T, String> setter) {
+        columns.add(new Column<T>(name) {
+            @Override
+            void read(ResultSet resultSet, int index, T item) throws SQLException {
+                setter.accept(item, resultSet.getString(index));
+            }
+
+            @Override
+            void bind(PreparedStatement ps, int index, T item) throws SQLException {
+                ps.setString(index, getter.apply(item));
+            }
+        });
+    }
+
+    /**
+     * Names of the columns in the order they are bound.
+     */
+    public String[] getColumnNames() {
+        return columns.stream().map(column -> column.name).toArray(String[]::new);
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        int[] indexes = ordinals(resultSet);
+        T item = factory.get();
+        for (int i = 0; i < indexes.length; i++) {
+            columns.get(i).read(resultSet, indexes[i], item);
+        }
+        return item;
+    }
+
+    @Override
+    public void setValues(T item, PreparedStatement ps) throws SQLException {
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).bind(ps, i + 1, item);
+        }
+    }
+
+    private int[] ordinals(ResultSet resultSet) throws SQLException {
+        Ordinals current = ordinals;
+        if (current == null || current.resultSet != resultSet) {
+            current = new Ordinals(resultSet, resolve(resultSet.getMetaData()));
+            ordinals = current;
+        }
+        return current.indexes;
+    }
+
+    private int[] resolve(ResultSetMetaData metaData) throws SQLException {
+        Map<String, Integer> labels = new HashMap<>();
+        for (int index = metaData.getColumnCount(); index > 0; index--) {
+            labels.put(metaData.getColumnLabel(index).toLowerCase(Locale.ROOT), index);
+        }
+        int[] indexes = new int[columns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            Integer index = labels.get(columns.get(i).name.toLowerCase(Locale.ROOT));
+            if (index == null) {
+                throw new SQLException("Column " + columns.get(i).name + " is not part of the result set");
+            }
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+
+    private abstract static class Column<T> {
+
+        final String name;
+
+        Column(String name) {
+            this.name = name;
+        }
+
+        abstract void read(ResultSet resultSet, int index, T item) throws SQLException;
+
+        abstract void bind(PreparedStatement ps, int index, T item) throws SQLException;
+    }
+
+    private static class Ordinals {
+
+        final ResultSet resultSet;
+
+        final int[] indexes;
+
+        Ordinals(ResultSet resultSet, int[] indexes) {
+            this.resultSet = resultSet;
+            this.indexes = indexes;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package copy.base.domain.codec;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Reads and binds a single value with the getter and setter of the driver matching the type of its column,
+ * producing the same objects as {@code getObject}. Values of another type than expected, as left by a transform,
+ * are bound with {@code setObject}.
+ */
+public enum ValueCodec {
+
+    LONG {
+        @Override
+        public Object read(ResultSet resultSet, int index) throws SQLException {
+            long value = resultSet.getLong(index);
+            return value == 0 && resultSet.wasNull() ? null : value;
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof Long) {
+                ps.setLong(index, (Long) value);
+            } else {
+                ps.setObject(index, value);
+            }
+        }
+    },
+
+    INT {
+        @Override
+        public Object read(ResultSet resultSet, int index) throws SQLException {
+            int value = resultSet.getInt(index);
+            return value == 0 && resultSet.wasNull() ? null : value;
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof Integer) {
+                ps.setInt(index, (Integer) value);
+            } else {
+                ps.setObject(index, value);
+            }
+        }
+    },
+
+    DOUBLE {
+        @Override
+        public Object read(ResultSet resultSet, int index) throws SQLException {
+            double value = resultSet.getDouble(index);
+            return value == 0 && resultSet.wasNull() ? null : value;
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof Double) {
+                ps.setDouble(index, (Double) value);
+            } else {
+                ps.setObject(index, value);
+            }
+        }
+    },
+
+    BOOLEAN {
+        @Override
+        public Object read(ResultSet resultSet, int index) throws SQLException {
+            boolean value = resultSet.getBoolean(index);
+            return !value && resultSet.wasNull() ? null : value;
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof Boolean) {
+                ps.setBoolean(index, (Boolean) value);
+            } else {
+                ps.setObject(index, value);
+            }
+        }
+    },
+
+    STRING {
+        @Override
+        public Object read(ResultSet resultSet, int index) throws SQLException {
+            return resultSet.getString(index);
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof String) {
+                ps.setString(index, (String) value);
+            } else {
+                ps.setObject(index, value);
+            }
+        }
+    },
+
+    BYTES {
+        @Override
+        public Object read(ResultSet resultSet, int index) throws SQLException {
+            return resultSet.getBytes(index);
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof byte[]) {
+                ps.setBytes(index, (byte[]) value);
+            } else {
+                ps.setObject(index, value);
+            }
+        }
+    },
+
+    OBJECT {
+        @Override
+        public Object read(ResultSet resultSet, int index) throws SQLException {
+            return resultSet.getObject(index);
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            ps.setObject(index, value);
+        }
+    };
+
+    /**
+     * Reads the value at the given index, {@code null} for SQL NULL.
+     */
+    public abstract Object read(ResultSet resultSet, int index) throws SQLException;
+
+    /**
+     * Binds a value that is not {@code null}.
+     */
+    public abstract void bind(PreparedStatement ps, int index, Object value) throws SQLException;
+
+    /**
+     * Codec of a column by its JDBC type and database type name. Types whose {@code getObject} result differs
+     * between database types sharing a JDBC type, like the {@code bit} and {@code money} types of PostgreSQL,
+     * fall back to {@link #OBJECT}.
+     */
+    public static ValueCodec of(int jdbcType, String typeName) {
+        switch (jdbcType) {
+            case Types.BIGINT:
+                return LONG;
+            case Types.INTEGER:
+            case Types.SMALLINT:
+                return INT;
+            case Types.DOUBLE:
+                return "float8".equalsIgnoreCase(typeName) ? DOUBLE : OBJECT;
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.BIT:
+                return "bool".equalsIgnoreCase(typeName) ? BOOLEAN : OBJECT;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+                return STRING;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return BYTES;
+            default:
+                return OBJECT;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package copy.base.domain.datasource;
+
+public class ClientCsvRecordMapper implements CsvRecordMapper<Client> {
+
+    @Override
+    public Client map(CsvRecord record) {
+        return new Client(record.getLong(0),
+                record.getString(1),
+                record.getString(2),
+                record.getString(3),
+                record.getString(4));
+    }
+}
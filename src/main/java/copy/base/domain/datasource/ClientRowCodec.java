@@ -0,0 +1,18 @@
+package copy.base.domain.datasource;
+
+import copy.base.domain.codec.RowCodec;
+
+/**
+ * Reads clients from and binds them to {@code id, firstName, lastName, email, phone}.
+ */
+public class ClientRowCodec extends RowCodec<Client> {
+
+    public ClientRowCodec() {
+        super(Client::new);
+        longColumn("id", Client::getId, Client::setId);
+        stringColumn("firstName", Client::getFirstName, Client::setFirstName);
+        stringColumn("lastName", Client::getLastName, Client::setLastName);
+        stringColumn("email", Client::getEmail, Client::setEmail);
+        stringColumn("phone", Client::getPhone, Client::setPhone);
+    }
+}
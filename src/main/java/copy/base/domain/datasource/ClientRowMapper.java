@@ -1,17 +0,0 @@
-package copy.base.domain.datasource;
-
-import org.springframework.jdbc.core.RowMapper;
-
-import java.sql.ResultSet;
-import java.sql.SQLException;
-
-public class ClientRowMapper implements RowMapper<Client> {
-    @Override
-    public Client mapRow(ResultSet resultSet, int i) throws SQLException {
-        return new Client(resultSet.getLong("id"),
-                resultSet.getString("firstName"),
-                resultSet.getString("lastName"),
-                resultSet.getString("email"),
-                resultSet.getString("phone"));
-    }
-}
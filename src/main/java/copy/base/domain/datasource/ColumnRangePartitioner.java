@@ -11,12 +11,19 @@ import java.util.Map;
 
 public class ColumnRangePartitioner implements Partitioner {
 
+    public static final String MIN_VALUE = "minValue";
+    public static final String MAX_VALUE = "maxValue";
+
     private JdbcOperations jdbcTemplate;
 
     private String table;
 
     private String column;
 
+    private String where;
+
+    private Object[] whereArguments = new Object[0];
+
     public void setTable(String table) {
         this.table = table;
     }
@@ -25,33 +32,43 @@ public class ColumnRangePartitioner implements Partitioner {
         this.column = column;
     }
 
+    public void setWhere(String where, Object... whereArguments) {
+        this.where = where;
+        this.whereArguments = whereArguments;
+    }
+
     public void setDataSource(DataSource dataSource) {
         jdbcTemplate = new JdbcTemplate(dataSource);
     }
 
     @Override
     public Map<String, ExecutionContext> partition(int gridSize) {
-        int min = jdbcTemplate.queryForObject("SELECT MIN(" + column + ") from " + table, Integer.class);
-        int max = jdbcTemplate.queryForObject("SELECT MAX(" + column + ") from " + table, Integer.class);
-        int targetSize = (max - min) / gridSize + 1;
+        String filter = where == null ? "" : " WHERE " + where;
+        Long min = jdbcTemplate.queryForObject("SELECT MIN(" + column + ") from " + table + filter, Long.class, whereArguments);
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(" + column + ") from " + table + filter, Long.class, whereArguments);
 
-        Map<String, ExecutionContext> result = new HashMap<String, ExecutionContext>();
+        Map<String, ExecutionContext> result = new HashMap<>();
+        if (min == null || max == null) {
+            return result;
+        }
+
+        long targetSize = (max - min) / gridSize + 1;
         int number = 0;
-        int start = min;
-        int end = start + targetSize - 1;
+        long start = min;
+
+        while (true) {
+            long end = max - start < targetSize ? max : start + targetSize - 1;
 
-        while (start <= max) {
             ExecutionContext value = new ExecutionContext();
+            value.putLong(MIN_VALUE, start);
+            value.putLong(MAX_VALUE, end);
             result.put("partition" + number, value);
+            number++;
 
-            if (end >= max) {
-                end = max;
+            if (end == max) {
+                break;
             }
-            value.putInt("minValue", start);
-            value.putInt("maxValue", end);
-            start += targetSize;
-            end += targetSize;
-            number++;
+            start = end + 1;
         }
 
         return result;
@@ -0,0 +1,127 @@
+package copy.base.domain.datasource;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits a file into byte ranges that start and end on record boundaries, one partition per range. A line break
+ * inside a quoted field does not end a record, so the file is scanned from the start with the quoting rules of
+ * {@link CsvRecord}: a field starting with a quote is quoted up to the next single quote.
+ */
+public class CsvFilePartitioner implements Partitioner {
+
+    public static final String FILE_NAME = "fileName";
+    public static final String START_OFFSET = "startOffset";
+    public static final String END_OFFSET = "endOffset";
+
+    // a single MappedByteBuffer cannot address more than Integer.MAX_VALUE bytes
+    private static final long MAX_PARTITION_SIZE = Integer.MAX_VALUE;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final byte DELIMITER = ',';
+    private static final byte QUOTE = '"';
+
+    private Resource resource;
+
+    private int linesToSkip;
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setLinesToSkip(int linesToSkip) {
+        this.linesToSkip = linesToSkip;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> result = new HashMap<>();
+        Path file = file();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long size = channel.size();
+            long start = 0;
+            for (int i = 0; i < linesToSkip; i++) {
+                start = nextRecord(channel, buffer, start, start, size);
+            }
+            int partitions = (int) Math.max(gridSize, (size - start) / MAX_PARTITION_SIZE + 1);
+            long targetSize = (size - start) / partitions + 1;
+
+            int number = 0;
+            while (start < size) {
+                long end = size - start <= targetSize ? size : nextRecord(channel, buffer, start, start + targetSize, size);
+
+                ExecutionContext value = new ExecutionContext();
+                value.putString(FILE_NAME, file.toString());
+                value.putLong(START_OFFSET, start);
+                value.putLong(END_OFFSET, end);
+                result.put("partition" + number, value);
+                number++;
+
+                start = end;
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Unable to partition " + file, e);
+        }
+        return result;
+    }
+
+    private Path file() {
+        try {
+            return resource.getFile().toPath();
+        } catch (IOException e) {
+            throw new ItemStreamException(resource + " is not a file on the file system and cannot be memory-mapped", e);
+        }
+    }
+
+    /**
+     * Returns the start of the first record beginning after {@code from}, scanning from {@code position}, which must
+     * be the start of a record.
+     */
+    private static long nextRecord(FileChannel channel, ByteBuffer buffer, long position, long from, long size) throws IOException {
+        boolean fieldStart = true;
+        boolean quoted = false;
+        // a quote inside a quoted field, closing it unless another quote follows
+        boolean closing = false;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (closing) {
+                    closing = false;
+                    if (b == QUOTE) {
+                        continue;
+                    }
+                    quoted = false;
+                }
+                if (quoted) {
+                    closing = b == QUOTE;
+                } else if (b == '\n') {
+                    if (position + i >= from) {
+                        return position + i + 1;
+                    }
+                    fieldStart = true;
+                } else if (b == DELIMITER) {
+                    fieldStart = true;
+                } else {
+                    quoted = fieldStart && b == QUOTE;
+                    fieldStart = false;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,158 @@
+package copy.base.domain.datasource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One comma separated line of a {@link ByteBuffer}. Only field boundaries are recorded while tokenizing;
+ * values are decoded straight from the buffer when a mapper asks for them. Instances are reused line by line.
+ */
+public class CsvRecord {
+
+    private static final byte DELIMITER = ',';
+    private static final byte QUOTE = '"';
+
+    private ByteBuffer buffer;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private boolean[] quoted = new boolean[8];
+    private int size;
+    private int lineStart;
+    private int lineEnd;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Tokenizes the line starting at {@code position} and returns the position of the next line.
+     */
+    public int parse(ByteBuffer buffer, int position, int limit) {
+        this.buffer = buffer;
+        this.size = 0;
+        this.lineStart = position;
+
+        int i = position;
+        while (true) {
+            boolean isQuoted = i < limit && buffer.get(i) == QUOTE;
+            int start = isQuoted ? i + 1 : i;
+            int end;
+            if (isQuoted) {
+                i = start;
+                while (i < limit) {
+                    if (buffer.get(i) == QUOTE) {
+                        if (i + 1 < limit && buffer.get(i + 1) == QUOTE) {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                end = i;
+                // skip the closing quote and anything up to the delimiter
+                while (i < limit && buffer.get(i) != DELIMITER && buffer.get(i) != '\n') {
+                    i++;
+                }
+            } else {
+                while (i < limit && buffer.get(i) != DELIMITER && buffer.get(i) != '\n') {
+                    i++;
+                }
+                end = i;
+                if (end > start && (i == limit || buffer.get(i) == '\n') && buffer.get(end - 1) == '\r') {
+                    end--;
+                }
+            }
+            addField(start, end, isQuoted);
+
+            if (i < limit && buffer.get(i) == DELIMITER) {
+                i++;
+                continue;
+            }
+            lineEnd = i;
+            return i < limit ? i + 1 : limit;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isBlank() {
+        return size == 1 && starts[0] == ends[0] && !quoted[0];
+    }
+
+    public long getLong(int index) {
+        checkIndex(index);
+        int i = starts[index];
+        int end = ends[index];
+        while (i < end && buffer.get(i) == ' ') {
+            i++;
+        }
+        while (end > i && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        boolean negative = i < end && buffer.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Empty number in field " + index + " of line: " + line());
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid number in field " + index + " of line: " + line());
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    public String getString(int index) {
+        checkIndex(index);
+        int start = starts[index];
+        int end = ends[index];
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        boolean ascii = true;
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE && quoted[index]) {
+                // doubled quote inside a quoted field
+                i++;
+            }
+            ascii &= b >= 0;
+            scratch[n++] = b;
+        }
+        return new String(scratch, 0, n, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    public String line() {
+        byte[] bytes = new byte[lineEnd - lineStart];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(lineStart + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void addField(int start, int end, boolean isQuoted) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            quoted = Arrays.copyOf(quoted, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        quoted[size] = isQuoted;
+        size++;
+    }
+
+    private void checkIndex(int index) {
+        if (index >= size) {
+            throw new IllegalArgumentException("Line has " + size + " fields, field " + index + " requested: " + line());
+        }
+    }
+}
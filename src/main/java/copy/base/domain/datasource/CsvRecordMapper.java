@@ -0,0 +1,7 @@
+package copy.base.domain.datasource;
+
+@FunctionalInterface
+public interface CsvRecordMapper<T> {
+
+    T map(CsvRecord record);
+}
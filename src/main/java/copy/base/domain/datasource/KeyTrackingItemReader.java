@@ -0,0 +1,74 @@
+package copy.base.domain.datasource;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Saves the key of the last item read, i.e. the last item of the committed chunk, as {@code <name>.lastKey} in
+ * the step execution context. The delegate must read in ascending key order and not save state of its own; a
+ * restarted step scoped reader binds {@code lastKey} to resume right after it, instead of skipping the rows read
+ * before.
+ * <p>
+ * Only meant for a single reading thread, as a partition is.
+ */
+public class KeyTrackingItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T>, InitializingBean {
+
+    public static final String LAST_KEY = "lastKey";
+
+    private ItemStreamReader<T> delegate;
+
+    private ToLongFunction<T> key;
+
+    private Long lastKey;
+
+    public void setDelegate(ItemStreamReader<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setKey(ToLongFunction<T> key) {
+        this.key = key;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(delegate, "A delegate reader is required");
+        Assert.notNull(key, "A key function is required");
+        if (delegate instanceof InitializingBean) {
+            ((InitializingBean) delegate).afterPropertiesSet();
+        }
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        String lastKeyKey = getExecutionContextKey(LAST_KEY);
+        lastKey = executionContext.containsKey(lastKeyKey) ? executionContext.getLong(lastKeyKey) : null;
+        delegate.open(executionContext);
+    }
+
+    @Override
+    public T read() throws Exception {
+        T item = delegate.read();
+        if (item != null) {
+            lastKey = key.applyAsLong(item);
+        }
+        return item;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        delegate.update(executionContext);
+        if (lastKey != null) {
+            executionContext.putLong(getExecutionContextKey(LAST_KEY), lastKey);
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
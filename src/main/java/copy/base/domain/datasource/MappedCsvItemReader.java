@@ -0,0 +1,98 @@
+package copy.base.domain.datasource;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a line aligned byte range of a CSV file through a read-only memory mapping. Each instance owns its
+ * range and is meant to be step scoped, one per partition created by {@link CsvFilePartitioner}.
+ */
+public class MappedCsvItemReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+    private static final String POSITION = "position";
+
+    private Path file;
+
+    private long startOffset;
+
+    private long endOffset;
+
+    private CsvRecordMapper<T> recordMapper;
+
+    private final CsvRecord record = new CsvRecord();
+
+    private MappedByteBuffer buffer;
+
+    private int position;
+
+    private int limit;
+
+    public void setFile(Path file) {
+        this.file = file;
+    }
+
+    public void setStartOffset(long startOffset) {
+        this.startOffset = startOffset;
+    }
+
+    public void setEndOffset(long endOffset) {
+        this.endOffset = endOffset;
+    }
+
+    public void setRecordMapper(CsvRecordMapper<T> recordMapper) {
+        this.recordMapper = recordMapper;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        Assert.notNull(file, "A file is required");
+        Assert.notNull(recordMapper, "A record mapper is required");
+        Assert.isTrue(endOffset - startOffset <= Integer.MAX_VALUE, "Range is too large to be mapped");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, startOffset, endOffset - startOffset);
+        } catch (IOException e) {
+            throw new ItemStreamException("Unable to map " + file, e);
+        }
+        limit = buffer.limit();
+        position = executionContext.getInt(getExecutionContextKey(POSITION), 0);
+    }
+
+    @Override
+    public T read() {
+        while (position < limit) {
+            int lineStart = position;
+            position = record.parse(buffer, position, limit);
+            if (record.isBlank()) {
+                continue;
+            }
+            try {
+                return recordMapper.map(record);
+            } catch (RuntimeException e) {
+                throw new FlatFileParseException("Parsing error at offset " + (startOffset + lineStart) + " in " + file,
+                        e, record.line(), -1);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        executionContext.putInt(getExecutionContextKey(POSITION), position);
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+    }
+}
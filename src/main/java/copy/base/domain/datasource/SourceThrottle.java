@@ -0,0 +1,283 @@
+package copy.base.domain.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.listener.JobExecutionListenerSupport;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the rows and bytes read from the source database per second, shared by every reader of a job. Each limit
+ * is a token bucket holding up to one second of reads; a reader taking more than is left waits until the debt is
+ * paid back, so concurrent readers share the rate.
+ * <p>
+ * In adaptive mode the load of the source is sampled from {@code pg_stat_activity} every {@code sampleInterval}:
+ * the number of active backends and the median age of their running queries, leaving out the connections of the
+ * copy itself, recognised by their {@code application_name}. Past either maximum the rates are halved, down to
+ * {@code minFactor} of the configured rates, and raised again by a tenth for every sample below them. Without a
+ * configured rows limit, the rows/s observed when the source first got overloaded is used instead.
+ * <p>
+ * The limits are exported over JMX to be adjusted while a job runs, and a job overrides them for its own execution
+ * with the {@value #ROWS_PER_SECOND} and {@value #BYTES_PER_SECOND} job parameters. A limit of 0 is unlimited.
+ */
+@ManagedResource(description = "Limits the rows and bytes read from the source database per second")
+public class SourceThrottle extends JobExecutionListenerSupport implements InitializingBean, DisposableBean {
+
+    public static final String ROWS_PER_SECOND = "throttle.rowsPerSecond";
+
+    public static final String BYTES_PER_SECOND = "throttle.bytesPerSecond";
+
+    private static final Logger log = LoggerFactory.getLogger(SourceThrottle.class);
+
+    private static final double INCREASE = 0.1;
+
+    private final Bucket rows = new Bucket();
+
+    private final Bucket bytes = new Bucket();
+
+    private final LongAdder rowsRead = new LongAdder();
+
+    private final LongAdder waitedNanos = new LongAdder();
+
+    private volatile long rowsPerSecond;
+
+    private volatile long bytesPerSecond;
+
+    private volatile double factor = 1;
+
+    private volatile long observedRowsPerSecond;
+
+    private long[] jobLimits;
+
+    private DataSource dataSource;
+
+    private Duration sampleInterval = Duration.ofSeconds(5);
+
+    private int maxActiveConnections;
+
+    private Duration maxQueryLatency = Duration.ZERO;
+
+    private double minFactor = 0.05;
+
+    private String applicationName;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ScheduledExecutorService scheduler;
+
+    private long lastSample;
+
+    private long lastRowsRead;
+
+    @ManagedAttribute(description = "Rows read per second, 0 is unlimited")
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    @ManagedAttribute
+    public void setRowsPerSecond(long rowsPerSecond) {
+        Assert.isTrue(rowsPerSecond >= 0, "Rows per second must not be negative");
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    @ManagedAttribute(description = "Bytes read per second, 0 is unlimited")
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    @ManagedAttribute
+    public void setBytesPerSecond(long bytesPerSecond) {
+        Assert.isTrue(bytesPerSecond >= 0, "Bytes per second must not be negative");
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    @ManagedAttribute(description = "Fraction of the limits applied after adaptive backoff")
+    public double getFactor() {
+        return factor;
+    }
+
+    @ManagedAttribute(description = "Time readers spent waiting on the throttle")
+    public long getWaitedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitedNanos.sum());
+    }
+
+    /**
+     * Source sampled in adaptive mode; adaptive mode is off without one.
+     */
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void setSampleInterval(Duration sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Active backends of the source above which reads back off, 0 to ignore them.
+     */
+    public void setMaxActiveConnections(int maxActiveConnections) {
+        this.maxActiveConnections = maxActiveConnections;
+    }
+
+    /**
+     * Median age of the running queries of the source above which reads back off, zero to ignore it.
+     */
+    public void setMaxQueryLatency(Duration maxQueryLatency) {
+        this.maxQueryLatency = maxQueryLatency;
+    }
+
+    public void setMinFactor(double minFactor) {
+        this.minFactor = minFactor;
+    }
+
+    /**
+     * {@code application_name} of the connections of the copy, left out of the sampled load.
+     */
+    public void setApplicationName(String applicationName) {
+        this.applicationName = applicationName;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.isTrue(minFactor > 0 && minFactor <= 1, "The minimum factor must be in (0, 1]");
+        if (dataSource == null) {
+            return;
+        }
+        Assert.isTrue(!sampleInterval.isZero() && !sampleInterval.isNegative(), "The sample interval must be positive");
+        Assert.isTrue(maxActiveConnections > 0 || !maxQueryLatency.isZero(), "A maximum of active connections or query latency is required");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        lastSample = System.nanoTime();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "source-throttle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sample, sampleInterval.toMillis(), sampleInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public synchronized void beforeJob(JobExecution jobExecution) {
+        jobLimits = new long[]{rowsPerSecond, bytesPerSecond};
+        Map<String, JobParameter> parameters = jobExecution.getJobParameters().getParameters();
+        if (parameters.containsKey(ROWS_PER_SECOND)) {
+            setRowsPerSecond(limit(parameters.get(ROWS_PER_SECOND)));
+        }
+        if (parameters.containsKey(BYTES_PER_SECOND)) {
+            setBytesPerSecond(limit(parameters.get(BYTES_PER_SECOND)));
+        }
+    }
+
+    @Override
+    public synchronized void afterJob(JobExecution jobExecution) {
+        if (jobLimits != null) {
+            rowsPerSecond = jobLimits[0];
+            bytesPerSecond = jobLimits[1];
+            jobLimits = null;
+        }
+    }
+
+    /**
+     * Takes the rows and bytes read, waiting as long as the limits require.
+     */
+    public void acquire(long rowCount, long byteCount) throws InterruptedException {
+        rowsRead.add(rowCount);
+        long rowsLimit = rowsPerSecond > 0 ? rowsPerSecond : observedRowsPerSecond;
+        long bytesLimit = bytesPerSecond;
+        if (rowsLimit == 0 && bytesLimit == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        double factor = this.factor;
+        long wait = Math.max(rows.take(rowCount, rowsLimit * factor, now), bytes.take(byteCount, bytesLimit * factor, now));
+        if (wait > 0) {
+            waitedNanos.add(wait);
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    void sample() {
+        try {
+            Map<String, Object> load = jdbcTemplate.queryForMap("SELECT COUNT(*) AS active, "
+                    + "COALESCE(PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY EXTRACT(EPOCH FROM CLOCK_TIMESTAMP() - query_start)), 0) AS latency "
+                    + "FROM pg_stat_activity WHERE state = 'active' AND backend_type = 'client backend' "
+                    + "AND pid <> PG_BACKEND_PID() AND application_name IS DISTINCT FROM ?", applicationName);
+            long now = System.nanoTime();
+            long read = rowsRead.sum();
+            adjust(((Number) load.get("active")).intValue(), Duration.ofMillis((long) (((Number) load.get("latency")).doubleValue() * 1000)),
+                    (read - lastRowsRead) * TimeUnit.SECONDS.toNanos(1) / Math.max(1, now - lastSample));
+            lastSample = now;
+            lastRowsRead = read;
+        } catch (Exception e) {
+            log.warn("Sampling the load of the source failed: {}", e.getMessage());
+        }
+    }
+
+    void adjust(int active, Duration latency, long currentRowsPerSecond) {
+        boolean overloaded = (maxActiveConnections > 0 && active > maxActiveConnections)
+                || (!maxQueryLatency.isZero() && latency.compareTo(maxQueryLatency) > 0);
+        double previous = factor;
+        if (overloaded) {
+            if (rowsPerSecond == 0 && observedRowsPerSecond == 0) {
+                observedRowsPerSecond = Math.max(1, currentRowsPerSecond);
+            }
+            factor = Math.max(minFactor, previous / 2);
+            log.info("Source overloaded with {} active connections and {}ms query latency, reads throttled to {}%",
+                    active, latency.toMillis(), Math.round(factor * 100));
+        } else if (previous < 1) {
+            factor = Math.min(1, previous + INCREASE);
+            if (factor == 1) {
+                observedRowsPerSecond = 0;
+                log.info("Source load back to normal, reads no longer throttled");
+            }
+        }
+    }
+
+    private static long limit(JobParameter parameter) {
+        Object value = parameter.getValue();
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+    }
+
+    private static class Bucket {
+
+        private double tokens;
+
+        private long last;
+
+        /**
+         * Takes {@code amount} tokens refilled at {@code rate} per second and returns the nanoseconds to wait until
+         * the tokens taken so far are covered.
+         */
+        synchronized long take(long amount, double rate, long now) {
+            if (rate <= 0) {
+                tokens = 0;
+                last = now;
+                return 0;
+            }
+            tokens = Math.min(rate, tokens + (now - last) * rate / TimeUnit.SECONDS.toNanos(1));
+            last = now;
+            tokens -= amount;
+            return tokens >= 0 ? 0 : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+    }
+}
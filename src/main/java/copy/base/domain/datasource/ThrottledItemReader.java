@@ -0,0 +1,74 @@
+package copy.base.domain.datasource;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Passes every item read through a {@link SourceThrottle}, with its size in bytes when a size function is set.
+ */
+public class ThrottledItemReader<T> implements ItemStreamReader<T>, InitializingBean {
+
+    private ItemReader<T> delegate;
+
+    private SourceThrottle throttle;
+
+    private ToLongFunction<T> size = item -> 0;
+
+    public void setDelegate(ItemReader<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setThrottle(SourceThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    /**
+     * Estimated size of an item as read from the source.
+     */
+    public void setSize(ToLongFunction<T> size) {
+        this.size = size;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(delegate, "A delegate reader is required");
+        Assert.notNull(throttle, "A throttle is required");
+        Assert.notNull(size, "A size function is required");
+    }
+
+    @Override
+    public T read() throws Exception {
+        T item = delegate.read();
+        if (item != null) {
+            throttle.acquire(1, size.applyAsLong(item));
+        }
+        return item;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+}
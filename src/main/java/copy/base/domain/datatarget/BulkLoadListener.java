@@ -0,0 +1,226 @@
+package copy.base.domain.datatarget;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk-load mode for a PostgreSQL target table. Before the step the secondary indexes and the foreign keys of the
+ * table are captured and dropped and, optionally, the table is switched to UNLOGGED; after the step logging is
+ * restored, the indexes are rebuilt in parallel and the foreign keys are added back and validated. The primary
+ * key and unique constraints are kept, as the writers rely on them.
+ * <p>
+ * The captured definitions are stored in the job execution context before anything is dropped and removed only
+ * once everything is restored, whatever the outcome of the step. When the restore itself fails the step fails
+ * too, and a restart of the job restores the definitions of the failed execution.
+ */
+public class BulkLoadListener extends StepExecutionListenerSupport {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkLoadListener.class);
+
+    private static final String SEPARATOR = "\t";
+
+    private final JobRepository jobRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String table;
+
+    private boolean unlogged;
+
+    private AsyncTaskExecutor taskExecutor = new TaskExecutorAdapter(new SyncTaskExecutor());
+
+    private String maintenanceWorkMem;
+
+    public BulkLoadListener(JobRepository jobRepository, DataSource dataSource, String table) {
+        this(jobRepository, new JdbcTemplate(dataSource), table);
+    }
+
+    public BulkLoadListener(JobRepository jobRepository, JdbcTemplate jdbcTemplate, String table) {
+        this.jobRepository = jobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+    }
+
+    public static String indexesKey(String table) {
+        return table + ".bulkLoad.indexes";
+    }
+
+    public static String foreignKeysKey(String table) {
+        return table + ".bulkLoad.foreignKeys";
+    }
+
+    public static String unloggedKey(String table) {
+        return table + ".bulkLoad.unlogged";
+    }
+
+    /**
+     * Switch the table to UNLOGGED during the load, fails when logged tables reference it.
+     */
+    public void setUnlogged(boolean unlogged) {
+        this.unlogged = unlogged;
+    }
+
+    /**
+     * Executor rebuilding the indexes, each index on its own connection.
+     */
+    public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * {@code maintenance_work_mem} of the index builds, e.g. {@code 1GB}; the server default when not set.
+     */
+    public void setMaintenanceWorkMem(String maintenanceWorkMem) {
+        this.maintenanceWorkMem = maintenanceWorkMem;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        JobExecution jobExecution = stepExecution.getJobExecution();
+        ExecutionContext context = jobExecution.getExecutionContext();
+        if (context.containsKey(indexesKey(table))) {
+            log.warn("{}: restoring the indexes and constraints dropped by a previous execution after this load", table);
+        } else {
+            context.putString(indexesKey(table), String.join("\n", jdbcTemplate.queryForList(
+                    "SELECT QUOTE_IDENT(n.nspname) || '.' || QUOTE_IDENT(i.relname) || ? || PG_GET_INDEXDEF(x.indexrelid) "
+                            + "FROM pg_index x JOIN pg_class i ON i.oid = x.indexrelid JOIN pg_namespace n ON n.oid = i.relnamespace "
+                            + "WHERE x.indrelid = CAST(? AS REGCLASS) "
+                            + "AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = x.indexrelid) ORDER BY i.relname",
+                    String.class, SEPARATOR, table)));
+            context.putString(foreignKeysKey(table), String.join("\n", jdbcTemplate.queryForList(
+                    "SELECT QUOTE_IDENT(conname) || ? || PG_GET_CONSTRAINTDEF(oid) FROM pg_constraint "
+                            + "WHERE conrelid = CAST(? AS REGCLASS) AND contype = 'f' ORDER BY conname",
+                    String.class, SEPARATOR, table)));
+            context.putString(unloggedKey(table), String.valueOf(unlogged && jdbcTemplate.queryForObject(
+                    "SELECT relpersistence = 'p' FROM pg_class WHERE oid = CAST(? AS REGCLASS)", Boolean.class, table)));
+            // persisted before anything is dropped, so that a crash cannot lose the definitions
+            jobRepository.updateExecutionContext(jobExecution);
+        }
+
+        List<String[]> indexes = definitions(context.getString(indexesKey(table)));
+        List<String[]> foreignKeys = definitions(context.getString(foreignKeysKey(table)));
+        for (String[] foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT IF EXISTS " + foreignKey[0]);
+        }
+        for (String[] index : indexes) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + index[0]);
+        }
+        if (Boolean.parseBoolean(context.getString(unloggedKey(table)))) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " SET UNLOGGED");
+        }
+        log.info("{}: bulk load with {} indexes and {} foreign keys dropped{}", table, indexes.size(), foreignKeys.size(),
+                Boolean.parseBoolean(context.getString(unloggedKey(table))) ? ", unlogged" : "");
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        JobExecution jobExecution = stepExecution.getJobExecution();
+        ExecutionContext context = jobExecution.getExecutionContext();
+        if (!context.containsKey(indexesKey(table))) {
+            return null;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            if (Boolean.parseBoolean(context.getString(unloggedKey(table)))) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " SET LOGGED");
+            }
+            List<String[]> indexes = definitions(context.getString(indexesKey(table)));
+            List<Future<?>> builds = new ArrayList<>();
+            for (String[] index : indexes) {
+                builds.add(taskExecutor.submit(() -> createIndex(index[0], index[1])));
+            }
+            for (Future<?> build : builds) {
+                get(build);
+            }
+            List<String[]> foreignKeys = definitions(context.getString(foreignKeysKey(table)));
+            for (String[] foreignKey : foreignKeys) {
+                addForeignKey(foreignKey[0], foreignKey[1]);
+            }
+
+            context.remove(indexesKey(table));
+            context.remove(foreignKeysKey(table));
+            context.remove(unloggedKey(table));
+            jobRepository.updateExecutionContext(jobExecution);
+            log.info("{}: {} indexes and {} foreign keys restored in {}ms", table, indexes.size(), foreignKeys.size(),
+                    System.currentTimeMillis() - start);
+            return null;
+        } catch (Exception e) {
+            log.error("{}: restoring indexes and constraints failed, they are restored when the job is restarted", table, e);
+            stepExecution.setStatus(BatchStatus.FAILED);
+            stepExecution.addFailureException(e);
+            return ExitStatus.FAILED.addExitDescription(e);
+        }
+    }
+
+    private void createIndex(String name, String definition) {
+        if (jdbcTemplate.queryForObject("SELECT TO_REGCLASS(?)", String.class, name) != null) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                if (maintenanceWorkMem != null) {
+                    statement.execute("SET maintenance_work_mem = '" + maintenanceWorkMem.replace("'", "''") + "'");
+                }
+                try {
+                    statement.execute(definition);
+                } finally {
+                    if (maintenanceWorkMem != null) {
+                        statement.execute("RESET maintenance_work_mem");
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void addForeignKey(String name, String definition) {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_constraint WHERE conrelid = CAST(? AS REGCLASS) "
+                + "AND QUOTE_IDENT(conname) = ?", Integer.class, table, name);
+        // a constraint that was not validated before the load is left that way
+        boolean validate = !definition.endsWith(" NOT VALID");
+        if (existing == 0) {
+            // added without checking the rows, then validated without blocking writes to the referenced table
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " " + definition + (validate ? " NOT VALID" : ""));
+        }
+        if (validate) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " VALIDATE CONSTRAINT " + name);
+        }
+    }
+
+    private static List<String[]> definitions(String definitions) {
+        List<String[]> result = new ArrayList<>();
+        for (String definition : definitions.split("\n")) {
+            if (!definition.isEmpty()) {
+                result.add(definition.split(SEPARATOR, 2));
+            }
+        }
+        return result;
+    }
+
+    private static void get(Future<?> future) throws Exception {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+}
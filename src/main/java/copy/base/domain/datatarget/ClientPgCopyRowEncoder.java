@@ -0,0 +1,19 @@
+package copy.base.domain.datatarget;
+
+import copy.base.domain.datasource.Client;
+
+public class ClientPgCopyRowEncoder implements PgCopyRowEncoder<Client> {
+
+    public static final String[] COLUMNS = {"id", "firstName", "lastName", "email", "phone"};
+
+    @Override
+    public void encode(Client client, PgCopyBuffer buffer) {
+        buffer.startRow(COLUMNS.length);
+        buffer.addLong(client.getId());
+        buffer.addString(client.getFirstName());
+        buffer.addString(client.getLastName());
+        buffer.addString(client.getEmail());
+        buffer.addString(client.getPhone());
+        buffer.endRow();
+    }
+}
@@ -0,0 +1,191 @@
+package copy.base.domain.datatarget;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes every chunk to several targets at once, each through a writer of its own that commits on its target. A
+ * target whose write fails is detached for the rest of the step and the others carry on; the chunk only fails when
+ * no target is left. Shared by the partitions of a step, its {@link #listener()} is registered on the step (the
+ * partitioned step for partitions), which records {@code fanOut.<target>.written} and {@code fanOut.<target>.failure} in its
+ * execution context, and the detached targets under {@value #DETACHED_KEY}. The step still completes when a target
+ * was detached, so the job carries on; detachment is reported in the context, a warning and the
+ * {@code copy.target.detached} counter.
+ * <p>
+ * A detached target misses every chunk written after its failure, copy it again on its own to catch up.
+ */
+public class FanOutItemWriter<T> implements ItemWriter<T>, InitializingBean {
+
+    public static final String DETACHED_KEY = "fanOut.detached";
+
+    private static final Logger log = LoggerFactory.getLogger(FanOutItemWriter.class);
+
+    private Map<String, ItemWriter<? super T>> targets;
+
+    private AsyncTaskExecutor taskExecutor;
+
+    private MeterRegistry registry;
+
+    private final Map<String, LongAdder> written = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> detachedCounters = new ConcurrentHashMap<>();
+
+    private final Map<String, Exception> failures = new ConcurrentHashMap<>();
+
+    public static String writtenKey(String target) {
+        return "fanOut." + target + ".written";
+    }
+
+    public static String failureKey(String target) {
+        return "fanOut." + target + ".failure";
+    }
+
+    /**
+     * Writers by target name, in the order they are reported.
+     */
+    public void setTargets(Map<String, ItemWriter<? super T>> targets) {
+        this.targets = new LinkedHashMap<>(targets);
+    }
+
+    /**
+     * Executor writing to all targets but the first, which is written by the chunk thread.
+     */
+    public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Registry of the {@code copy.target.items.written} and {@code copy.target.detached} counters, tagged with the
+     * target.
+     */
+    public void setMeterRegistry(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notEmpty(targets, "Targets are required");
+        Assert.notNull(taskExecutor, "A task executor is required");
+        for (String target : targets.keySet()) {
+            written.put(target, new LongAdder());
+            if (registry != null) {
+                counters.put(target, Counter.builder("copy.target.items.written").tag("target", target).register(registry));
+                detachedCounters.put(target, Counter.builder("copy.target.detached").tag("target", target).register(registry));
+            }
+        }
+    }
+
+    /**
+     * Listener resetting the targets before the step and recording their outcome after it; not the writer itself,
+     * which the step would register on every partition.
+     */
+    public StepExecutionListener listener() {
+        return new StepExecutionListener() {
+            @Override
+            public void beforeStep(StepExecution stepExecution) {
+                written.values().forEach(LongAdder::reset);
+                failures.clear();
+            }
+
+            @Override
+            public ExitStatus afterStep(StepExecution stepExecution) {
+                return FanOutItemWriter.this.afterStep(stepExecution);
+            }
+        };
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        List<String> active = new ArrayList<>();
+        for (String target : targets.keySet()) {
+            if (!failures.containsKey(target)) {
+                active.add(target);
+            }
+        }
+        if (active.isEmpty()) {
+            throw new IllegalStateException("No target left to write to, all were detached: " + String.join(", ", failures.keySet()));
+        }
+        List<Future<?>> writes = new ArrayList<>();
+        for (String target : active.subList(1, active.size())) {
+            writes.add(taskExecutor.submit(() -> {
+                targets.get(target).write(items);
+                return null;
+            }));
+        }
+
+        Exception failure = null;
+        int succeeded = 0;
+        for (int i = 0; i < active.size(); i++) {
+            String target = active.get(i);
+            try {
+                if (i == 0) {
+                    targets.get(target).write(items);
+                } else {
+                    get(writes.get(i - 1));
+                }
+                written.get(target).add(items.size());
+                if (registry != null) {
+                    counters.get(target).increment(items.size());
+                }
+                succeeded++;
+            } catch (Exception e) {
+                failure = e;
+                if (failures.putIfAbsent(target, e) == null) {
+                    log.error("Target {} failed and is detached, {} items were written to it", target, written.get(target).sum(), e);
+                    if (registry != null) {
+                        detachedCounters.get(target).increment();
+                    }
+                }
+            }
+        }
+        if (succeeded == 0 && failure != null) {
+            throw failure;
+        }
+    }
+
+    private ExitStatus afterStep(StepExecution stepExecution) {
+        for (String target : targets.keySet()) {
+            long count = written.get(target).sum();
+            stepExecution.getExecutionContext().putLong(writtenKey(target), count);
+            Exception failure = failures.get(target);
+            if (failure != null) {
+                stepExecution.getExecutionContext().putString(failureKey(target), String.valueOf(failure));
+            }
+            log.info("Target {}: {} items written{}", target, count, failure == null ? "" : ", detached after " + failure);
+        }
+        if (!failures.isEmpty()) {
+            String detached = String.join(", ", failures.keySet());
+            stepExecution.getExecutionContext().putString(DETACHED_KEY, detached);
+            log.warn("Step {} ended with detached targets {}, copy them again on their own to catch up", stepExecution.getStepName(), detached);
+        }
+        return null;
+    }
+
+    private static void get(Future<?> future) throws Exception {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package copy.base.domain.datatarget;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that encodes rows in the PostgreSQL COPY text or binary format.
+ * Strings are UTF-8 encoded straight into the buffer, so no intermediate byte arrays are created per field.
+ */
+public class PgCopyBuffer {
+
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final byte[] TEXT_NULL = {'\\', 'N'};
+
+    private final PgCopyFormat format;
+    private byte[] bytes;
+    private int size;
+    private boolean firstField;
+
+    public PgCopyBuffer(PgCopyFormat format, int initialCapacity) {
+        this.format = format;
+        this.bytes = new byte[initialCapacity];
+    }
+
+    public void startCopy() {
+        if (format == PgCopyFormat.BINARY) {
+            ensureCapacity(BINARY_SIGNATURE.length + 8);
+            System.arraycopy(BINARY_SIGNATURE, 0, bytes, size, BINARY_SIGNATURE.length);
+            size += BINARY_SIGNATURE.length;
+            putInt(0);
+            putInt(0);
+        }
+    }
+
+    public void endCopy() {
+        if (format == PgCopyFormat.BINARY) {
+            ensureCapacity(2);
+            putShort(-1);
+        }
+    }
+
+    public void startRow(int fieldCount) {
+        firstField = true;
+        if (format == PgCopyFormat.BINARY) {
+            ensureCapacity(2);
+            putShort(fieldCount);
+        }
+    }
+
+    public void endRow() {
+        if (format == PgCopyFormat.TEXT) {
+            ensureCapacity(1);
+            bytes[size++] = '\n';
+        }
+    }
+
+    public void addNull() {
+        if (format == PgCopyFormat.BINARY) {
+            ensureCapacity(4);
+            putInt(-1);
+        } else {
+            separate();
+            ensureCapacity(TEXT_NULL.length);
+            System.arraycopy(TEXT_NULL, 0, bytes, size, TEXT_NULL.length);
+            size += TEXT_NULL.length;
+        }
+    }
+
+    public void addLong(Long value) {
+        if (value == null) {
+            addNull();
+        } else {
+            addLong(value.longValue());
+        }
+    }
+
+    public void addLong(long value) {
+        if (format == PgCopyFormat.BINARY) {
+            ensureCapacity(12);
+            putInt(8);
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        } else {
+            separate();
+            String text = Long.toString(value);
+            ensureCapacity(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                bytes[size++] = (byte) text.charAt(i);
+            }
+        }
+    }
+
+    public void addString(String value) {
+        if (value == null) {
+            addNull();
+            return;
+        }
+        if (format == PgCopyFormat.BINARY) {
+            ensureCapacity(4);
+            int lengthPosition = size;
+            size += 4;
+            int start = size;
+            putUtf8(value, false);
+            int length = size - start;
+            size = lengthPosition;
+            putInt(length);
+            size = start + length;
+        } else {
+            separate();
+            putUtf8(value, true);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] array() {
+        return bytes;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void separate() {
+        if (firstField) {
+            firstField = false;
+        } else {
+            ensureCapacity(1);
+            bytes[size++] = '\t';
+        }
+    }
+
+    private void putUtf8(String value, boolean escape) {
+        int length = value.length();
+        // worst case: every char escaped in text mode or encoded as three bytes
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (escape) {
+                    switch (c) {
+                        case '\\':
+                            bytes[size++] = '\\';
+                            bytes[size++] = '\\';
+                            continue;
+                        case '\n':
+                            bytes[size++] = '\\';
+                            bytes[size++] = 'n';
+                            continue;
+                        case '\r':
+                            bytes[size++] = '\\';
+                            bytes[size++] = 'r';
+                            continue;
+                        case '\t':
+                            bytes[size++] = '\\';
+                            bytes[size++] = 't';
+                            continue;
+                        default:
+                    }
+                }
+                bytes[size++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[size++] = '?';
+            } else {
+                bytes[size++] = (byte) (0xE0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void putShort(int value) {
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        bytes[size++] = (byte) (value >>> 24);
+        bytes[size++] = (byte) (value >>> 16);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+}
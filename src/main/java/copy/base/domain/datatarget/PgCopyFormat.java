@@ -0,0 +1,20 @@
+package copy.base.domain.datatarget;
+
+public enum PgCopyFormat {
+    TEXT("text"),
+    BINARY("binary");
+
+    private final String option;
+
+    PgCopyFormat(String option) {
+        this.option = option;
+    }
+
+    public String copyFromStdin(String table, String... columns) {
+        return "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT " + option + ")";
+    }
+
+    public String copyToStdout(String query) {
+        return "COPY (" + query + ") TO STDOUT WITH (FORMAT " + option + ")";
+    }
+}
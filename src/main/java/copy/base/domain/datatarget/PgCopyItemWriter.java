@@ -0,0 +1,94 @@
+package copy.base.domain.datatarget;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Writes each chunk with a single {@code COPY ... FROM STDIN} through the PostgreSQL {@link org.postgresql.copy.CopyManager}.
+ * The writer keeps no state between chunks and may be shared by concurrent step threads.
+ */
+public class PgCopyItemWriter<T> implements ItemWriter<T>, InitializingBean {
+
+    private static final int FLUSH_SIZE = 64 * 1024;
+
+    private DataSource dataSource;
+
+    private String table;
+
+    private String[] columns;
+
+    private PgCopyFormat format = PgCopyFormat.TEXT;
+
+    private PgCopyRowEncoder<T> encoder;
+
+    private String sql;
+
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public void setColumns(String... columns) {
+        this.columns = columns;
+    }
+
+    public void setFormat(PgCopyFormat format) {
+        this.format = format;
+    }
+
+    public void setEncoder(PgCopyRowEncoder<T> encoder) {
+        this.encoder = encoder;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(dataSource, "A DataSource is required");
+        Assert.hasText(table, "A table is required");
+        Assert.notEmpty(columns, "Columns are required");
+        Assert.notNull(format, "A COPY format is required");
+        Assert.notNull(encoder, "A row encoder is required");
+        sql = format.copyFromStdin(table, columns);
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            try {
+                PgCopyBuffer buffer = new PgCopyBuffer(format, FLUSH_SIZE + FLUSH_SIZE / 4);
+                buffer.startCopy();
+                for (T item : items) {
+                    encoder.encode(item, buffer);
+                    if (buffer.size() >= FLUSH_SIZE) {
+                        copyIn.writeToCopy(buffer.array(), 0, buffer.size());
+                        buffer.clear();
+                    }
+                }
+                buffer.endCopy();
+                copyIn.writeToCopy(buffer.array(), 0, buffer.size());
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
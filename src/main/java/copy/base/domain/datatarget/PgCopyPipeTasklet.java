@@ -0,0 +1,228 @@
+package copy.base.domain.datatarget;
+
+import copy.base.domain.datasource.SourceThrottle;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyOut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies rows without materialising them: {@code COPY (query) TO STDOUT} on the source is piped into
+ * {@code COPY table FROM STDIN} on the target. A reader thread fills fixed-size blocks that are handed to the
+ * step thread through a bounded queue, so at most {@code blockCount} blocks are in flight at any time.
+ */
+public class PgCopyPipeTasklet implements Tasklet, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PgCopyPipeTasklet.class);
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private DataSource source;
+
+    private DataSource target;
+
+    private AsyncTaskExecutor taskExecutor;
+
+    private String query;
+
+    private String table;
+
+    private String[] columns;
+
+    private PgCopyFormat format = PgCopyFormat.BINARY;
+
+    private int blockCount = 16;
+
+    private SourceThrottle throttle;
+
+    public void setSource(DataSource source) {
+        this.source = source;
+    }
+
+    public void setTarget(DataSource target) {
+        this.target = target;
+    }
+
+    public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public void setColumns(String... columns) {
+        this.columns = columns;
+    }
+
+    public void setFormat(PgCopyFormat format) {
+        this.format = format;
+    }
+
+    public void setBlockCount(int blockCount) {
+        this.blockCount = blockCount;
+    }
+
+    /**
+     * Throttle taking every row read from the source, with its encoded size.
+     */
+    public void setThrottle(SourceThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(source, "A source DataSource is required");
+        Assert.notNull(target, "A target DataSource is required");
+        Assert.notNull(taskExecutor, "A task executor is required");
+        Assert.hasText(query, "A source query is required");
+        Assert.hasText(table, "A target table is required");
+        Assert.notEmpty(columns, "Columns are required");
+        Assert.isTrue(blockCount > 1, "At least two blocks are required");
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        BlockingQueue<Block> free = new ArrayBlockingQueue<>(blockCount);
+        BlockingQueue<Block> full = new ArrayBlockingQueue<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            free.add(new Block());
+        }
+
+        Future<Long> reader = taskExecutor.submit(() -> copyOut(free, full));
+        long written;
+        try {
+            written = copyIn(full, free, reader);
+        } catch (Exception e) {
+            reader.cancel(true);
+            throw e;
+        }
+
+        StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+        stepExecution.setReadCount(stepExecution.getReadCount() + reader.get().intValue());
+        contribution.incrementWriteCount((int) written);
+        log.debug("Piped {} rows into {}", written, table);
+        return RepeatStatus.FINISHED;
+    }
+
+    private long copyOut(BlockingQueue<Block> free, BlockingQueue<Block> full) throws Exception {
+        Connection connection = DataSourceUtils.getConnection(source);
+        try {
+            CopyOut copyOut = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(format.copyToStdout(query));
+            try {
+                Block block = free.take();
+                byte[] row;
+                while ((row = copyOut.readFromCopy()) != null) {
+                    if (throttle != null) {
+                        throttle.acquire(1, row.length);
+                    }
+                    if (block.length + row.length > block.bytes.length && block.length > 0) {
+                        full.put(block);
+                        block = free.take();
+                    }
+                    block.append(row);
+                }
+                full.put(block);
+                full.put(Block.END);
+                return copyOut.getHandledRowCount();
+            } finally {
+                if (copyOut.isActive()) {
+                    copyOut.cancelCopy();
+                }
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, source);
+        }
+    }
+
+    private long copyIn(BlockingQueue<Block> full, BlockingQueue<Block> free, Future<Long> reader) throws Exception {
+        Connection connection = DataSourceUtils.getConnection(target);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(format.copyFromStdin(table, columns));
+            try {
+                Block block;
+                while ((block = nextBlock(full, reader)) != Block.END) {
+                    copyIn.writeToCopy(block.bytes, 0, block.length);
+                    block.length = 0;
+                    free.put(block);
+                }
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, target);
+        }
+    }
+
+    private Block nextBlock(BlockingQueue<Block> full, Future<Long> reader) throws Exception {
+        while (true) {
+            Block block = full.poll(100, TimeUnit.MILLISECONDS);
+            if (block != null) {
+                return block;
+            }
+            if (reader.isDone()) {
+                // the reader only finishes without queueing END when it failed
+                try {
+                    reader.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+                block = full.poll();
+                if (block != null) {
+                    return block;
+                }
+                throw new IllegalStateException("Source COPY finished without end of data");
+            }
+        }
+    }
+
+    private static class Block {
+
+        private static final Block END = new Block(0);
+
+        private byte[] bytes;
+        private int length;
+
+        private Block() {
+            this(BLOCK_SIZE);
+        }
+
+        private Block(int size) {
+            this.bytes = new byte[size];
+        }
+
+        private void append(byte[] row) {
+            if (length + row.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, length + row.length);
+            }
+            System.arraycopy(row, 0, bytes, length, row.length);
+            length += row.length;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package copy.base.domain.datatarget;
+
+@FunctionalInterface
+public interface PgCopyRowEncoder<T> {
+
+    void encode(T item, PgCopyBuffer buffer);
+}
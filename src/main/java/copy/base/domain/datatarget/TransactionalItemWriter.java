@@ -0,0 +1,49 @@
+package copy.base.domain.datatarget;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * Writes every chunk in a transaction of its own on the target, as the step transaction only spans the job
+ * repository. The chunk is committed before the step commits the execution context recording it, so a failed
+ * chunk leaves no rows behind and a restart resumes right after the last committed chunk. Should the process die
+ * between the two commits, the restart writes that one chunk again.
+ */
+public class TransactionalItemWriter<T> implements ItemWriter<T>, InitializingBean {
+
+    private ItemWriter<? super T> delegate;
+
+    private PlatformTransactionManager transactionManager;
+
+    public void setDelegate(ItemWriter<? super T> delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(delegate, "A delegate writer is required");
+        Assert.notNull(transactionManager, "A transaction manager is required");
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        TransactionStatus transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        try {
+            delegate.write(items);
+        } catch (Throwable e) {
+            transactionManager.rollback(transaction);
+            throw e;
+        }
+        transactionManager.commit(transaction);
+    }
+}
@@ -0,0 +1,25 @@
+package copy.base.domain.index;
+
+import org.springframework.batch.item.ItemProcessor;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Filters out the items whose key is already present in the target.
+ */
+public class ExistingIdFilterProcessor<T> implements ItemProcessor<T, T> {
+
+    private final ExistingIds existingIds;
+
+    private final ToLongFunction<T> key;
+
+    public ExistingIdFilterProcessor(ExistingIds existingIds, ToLongFunction<T> key) {
+        this.existingIds = existingIds;
+        this.key = key;
+    }
+
+    @Override
+    public T process(T item) {
+        return existingIds.contains(key.applyAsLong(item)) ? null : item;
+    }
+}
@@ -0,0 +1,131 @@
+package copy.base.domain.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Keys already present in a target table, streamed into an off-heap {@link LongSet} before the step and released
+ * after it. The set is a bit set when the key range is dense enough to take less memory than a hash set, else a
+ * hash set, optionally behind a Bloom filter. Rows written to the table while the step runs are not tracked.
+ */
+public class ExistingIds extends StepExecutionListenerSupport {
+
+    public static final String COUNT = "existingIds.count";
+
+    private static final Logger log = LoggerFactory.getLogger(ExistingIds.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String table;
+
+    private final String column;
+
+    private int fetchSize = 10_000;
+
+    private int bloomFilterBitsPerKey;
+
+    private volatile LongSet ids;
+
+    private volatile OffHeapBloomFilter bloomFilter;
+
+    public ExistingIds(DataSource dataSource, String table, String column) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.table = table;
+        this.column = column;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Size of the Bloom filter in front of a hash set, 0 for none; 10 bits per key keep false positives around 2%.
+     */
+    public void setBloomFilterBitsPerKey(int bloomFilterBitsPerKey) {
+        this.bloomFilterBitsPerKey = bloomFilterBitsPerKey;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        load();
+        stepExecution.getExecutionContext().putLong(COUNT, ids.size());
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        // the direct buffers are freed once collected
+        ids = null;
+        bloomFilter = null;
+        return null;
+    }
+
+    public boolean contains(long id) {
+        LongSet ids = this.ids;
+        Assert.state(ids != null, "Existing ids of " + table + " are not loaded");
+        OffHeapBloomFilter bloomFilter = this.bloomFilter;
+        if (bloomFilter != null && !bloomFilter.mightContain(id)) {
+            return false;
+        }
+        return ids.contains(id);
+    }
+
+    void load() {
+        long start = System.currentTimeMillis();
+        Long[] stats = jdbcTemplate.queryForObject("SELECT COUNT(*), MIN(" + column + "), MAX(" + column + ") FROM " + table,
+                (resultSet, i) -> new Long[]{resultSet.getLong(1), resultSet.getObject(2, Long.class), resultSet.getObject(3, Long.class)});
+        long count = stats[0];
+        LongSet ids;
+        OffHeapBloomFilter bloomFilter = null;
+        String query = "SELECT " + column + " FROM " + table;
+        if (count > 0 && OffHeapBitSet.bytes(stats[1], stats[2]) <= OffHeapLongHashSet.bytes(count)) {
+            ids = new OffHeapBitSet(stats[1], stats[2]);
+            // rows added since cannot be tracked by the bit set
+            query += " WHERE " + column + " BETWEEN " + stats[1] + " AND " + stats[2];
+        } else {
+            ids = new OffHeapLongHashSet(count);
+            if (bloomFilterBitsPerKey > 0) {
+                bloomFilter = new OffHeapBloomFilter(count, bloomFilterBitsPerKey);
+            }
+        }
+
+        String sql = query;
+        OffHeapBloomFilter filter = bloomFilter;
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            // PostgreSQL only streams through a server side cursor outside of auto-commit
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        long id = resultSet.getLong(1);
+                        ids.add(id);
+                        if (filter != null) {
+                            filter.add(id);
+                        }
+                    }
+                }
+            } finally {
+                connection.commit();
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+
+        this.ids = ids;
+        this.bloomFilter = bloomFilter;
+        log.info("{}: {} existing ids loaded into a {} of {}MB{} in {}ms", table, ids.size(), ids.getClass().getSimpleName(),
+                ids.bytes() >> 20, bloomFilter == null ? "" : " behind a Bloom filter of " + (bloomFilter.bytes() >> 20) + "MB",
+                System.currentTimeMillis() - start);
+    }
+}
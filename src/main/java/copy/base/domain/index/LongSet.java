@@ -0,0 +1,21 @@
+package copy.base.domain.index;
+
+/**
+ * Set of primitive longs, filled by a single thread and then read by any number of threads.
+ */
+public interface LongSet {
+
+    /**
+     * Returns whether the key was not present yet.
+     */
+    boolean add(long key);
+
+    boolean contains(long key);
+
+    long size();
+
+    /**
+     * Memory held outside of the heap, in bytes.
+     */
+    long bytes();
+}
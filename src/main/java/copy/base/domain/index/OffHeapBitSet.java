@@ -0,0 +1,84 @@
+package copy.base.domain.index;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Set of the longs within {@code min..max}, one bit per possible key in direct buffers of at most 1GB each. For
+ * densely populated key ranges, as sequence generated ids are, it takes a fraction of the memory of a hash set.
+ */
+public class OffHeapBitSet implements LongSet {
+
+    private static final int SEGMENT_BITS = 27;
+
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final long min;
+
+    private final long max;
+
+    private final LongBuffer[] segments;
+
+    private long size;
+
+    public OffHeapBitSet(long min, long max) {
+        if (max < min || max - min < 0) {
+            throw new IllegalArgumentException("Key range " + min + ".." + max + " is too large");
+        }
+        this.min = min;
+        this.max = max;
+        long words = ((max - min) >>> 6) + 1;
+        int segmentSize = (int) Math.min(words, 1L << SEGMENT_BITS);
+        segments = new LongBuffer[(int) ((words + segmentSize - 1) / segmentSize)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect(segmentSize * Long.BYTES).asLongBuffer();
+        }
+    }
+
+    /**
+     * Memory a bit set for {@code min..max} would take, to decide between it and a hash set.
+     */
+    public static long bytes(long min, long max) {
+        long range = max - min;
+        return range < 0 ? Long.MAX_VALUE : ((range >>> 6) + 1) * Long.BYTES;
+    }
+
+    @Override
+    public boolean add(long key) {
+        if (key < min || key > max) {
+            throw new IllegalArgumentException("Key " + key + " is out of " + min + ".." + max);
+        }
+        long bit = key - min;
+        long word = bit >>> 6;
+        LongBuffer segment = segments[(int) (word >>> SEGMENT_BITS)];
+        int index = (int) (word & SEGMENT_MASK);
+        long current = segment.get(index);
+        long updated = current | (1L << bit);
+        if (updated == current) {
+            return false;
+        }
+        segment.put(index, updated);
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(long key) {
+        if (key < min || key > max) {
+            return false;
+        }
+        long bit = key - min;
+        long word = bit >>> 6;
+        return (segments[(int) (word >>> SEGMENT_BITS)].get((int) (word & SEGMENT_MASK)) & (1L << bit)) != 0;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long bytes() {
+        return bytes(min, max);
+    }
+}
@@ -0,0 +1,81 @@
+package copy.base.domain.index;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Blocked Bloom filter in a direct buffer: all bits of a key fall into a single 64 bit word, so a lookup costs
+ * one memory access however many bits are set per key. Put in front of a large hash set, it answers most
+ * lookups of absent keys from a structure small enough to stay in cache.
+ * <p>
+ * The words are held in direct buffers of at most 1GB each. A hash picks one of at most 2^28 words, so past about a
+ * billion keys at 10 bits per key the filter stays at 2GB and the false positive rate grows instead.
+ */
+public class OffHeapBloomFilter {
+
+    private static final int SEGMENT_BITS = 27;
+
+    private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+
+    static final int MAX_WORD_COUNT = 1 << 28;
+
+    private final LongBuffer[] segments;
+
+    private final int mask;
+
+    private final int bitsPerKey;
+
+    public OffHeapBloomFilter(long expectedSize, int bitsPerKey) {
+        int wordCount = wordCount(expectedSize, bitsPerKey);
+        int segmentSize = Math.min(wordCount, 1 << SEGMENT_BITS);
+        this.segments = new LongBuffer[wordCount / segmentSize];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect(segmentSize * Long.BYTES).asLongBuffer();
+        }
+        this.mask = wordCount - 1;
+        // ln 2 * bits per key minimises false positives, at most 6 as they share one word
+        this.bitsPerKey = Math.max(1, Math.min(6, (int) Math.round(bitsPerKey * 0.69)));
+    }
+
+    /**
+     * Words of a filter for {@code expectedSize} keys, a power of two of at most {@link #MAX_WORD_COUNT}.
+     */
+    static int wordCount(long expectedSize, int bitsPerKey) {
+        long bits = Math.max(64, Math.max(1, expectedSize) * bitsPerKey);
+        return (int) Math.min(MAX_WORD_COUNT, Long.highestOneBit((bits + 63) / 64 * 2 - 1));
+    }
+
+    public void add(long key) {
+        long hash = OffHeapLongHashSet.hash(key);
+        int index = index(hash);
+        LongBuffer segment = segments[index >>> SEGMENT_BITS];
+        segment.put(index & SEGMENT_MASK, segment.get(index & SEGMENT_MASK) | pattern(hash));
+    }
+
+    /**
+     * False only when the key was never added.
+     */
+    public boolean mightContain(long key) {
+        long hash = OffHeapLongHashSet.hash(key);
+        long pattern = pattern(hash);
+        int index = index(hash);
+        return (segments[index >>> SEGMENT_BITS].get(index & SEGMENT_MASK) & pattern) == pattern;
+    }
+
+    public long bytes() {
+        return (long) (mask + 1) * Long.BYTES;
+    }
+
+    private int index(long hash) {
+        return (int) (hash >>> 36) & mask;
+    }
+
+    private long pattern(long hash) {
+        long pattern = 0;
+        // the lower 36 bits of the hash, apart from the 28 upper ones picking the word, select up to 6 bits
+        for (int i = 0; i < bitsPerKey; i++) {
+            pattern |= 1L << (hash >>> (6 * i));
+        }
+        return pattern;
+    }
+}
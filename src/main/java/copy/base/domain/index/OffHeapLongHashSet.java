@@ -0,0 +1,116 @@
+package copy.base.domain.index;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Open addressing hash set of longs with linear probing, stored in direct buffers of at most 1GB each so that
+ * it holds billions of keys without boxing or heap. The capacity is fixed when it is created, for up to
+ * {@code expectedSize} keys at a load factor of at most one half; adding keys past 3/4 of it fails.
+ * <p>
+ * Empty slots hold 0, so the key 0 is tracked apart.
+ */
+public class OffHeapLongHashSet implements LongSet {
+
+    private static final int SEGMENT_BITS = 27;
+
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final LongBuffer[] segments;
+
+    private final long mask;
+
+    private final long maxSize;
+
+    private boolean containsZero;
+
+    private long size;
+
+    public OffHeapLongHashSet(long expectedSize) {
+        long capacity = capacity(expectedSize);
+        mask = capacity - 1;
+        maxSize = capacity / 4 * 3;
+        int segmentSize = (int) Math.min(capacity, 1L << SEGMENT_BITS);
+        segments = new LongBuffer[(int) (capacity / segmentSize)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect(segmentSize * Long.BYTES).asLongBuffer();
+        }
+    }
+
+    /**
+     * Memory a hash set for {@code expectedSize} keys would take, to decide between it and a bit set.
+     */
+    public static long bytes(long expectedSize) {
+        return capacity(expectedSize) * Long.BYTES;
+    }
+
+    private static long capacity(long expectedSize) {
+        return Math.max(16, Long.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+    }
+
+    @Override
+    public boolean add(long key) {
+        if (key == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            size += added ? 1 : 0;
+            return added;
+        }
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = get(slot);
+            if (current == key) {
+                return false;
+            }
+            if (current == 0) {
+                if (size >= maxSize) {
+                    throw new IllegalStateException("Hash set is full, it was created for fewer keys");
+                }
+                segments[(int) (slot >>> SEGMENT_BITS)].put((int) (slot & SEGMENT_MASK), key);
+                size++;
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = get(slot);
+            if (current == key) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long bytes() {
+        return (mask + 1) * Long.BYTES;
+    }
+
+    private long get(long slot) {
+        return segments[(int) (slot >>> SEGMENT_BITS)].get((int) (slot & SEGMENT_MASK));
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads sequential ids over the whole table.
+     */
+    static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,64 @@
+package copy.base.domain.overlap;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Registers the key of every item read with a {@link CommittedWatermark}. Reads are synchronized, so the reader
+ * can be shared by the threads of a multi-threaded step.
+ */
+public class CommittedKeyItemReader<T> implements ItemStreamReader<T>, InitializingBean {
+
+    private ItemStreamReader<T> delegate;
+
+    private ToLongFunction<T> key;
+
+    private CommittedWatermark watermark;
+
+    public void setDelegate(ItemStreamReader<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setKey(ToLongFunction<T> key) {
+        this.key = key;
+    }
+
+    public void setWatermark(CommittedWatermark watermark) {
+        this.watermark = watermark;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(delegate, "A delegate reader is required");
+        Assert.notNull(key, "A key function is required");
+        Assert.notNull(watermark, "A watermark is required");
+    }
+
+    @Override
+    public synchronized T read() throws Exception {
+        T item = delegate.read();
+        if (item != null) {
+            watermark.read(key.applyAsLong(item));
+        }
+        return item;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        delegate.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        delegate.update(executionContext);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
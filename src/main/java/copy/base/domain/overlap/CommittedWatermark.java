@@ -0,0 +1,139 @@
+package copy.base.domain.overlap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Highest key up to which a producing step has committed every row it will write, followed by a consuming step
+ * running at the same time. The producer must read its items in ascending key order, each read registered through
+ * {@link CommittedKeyItemReader}: the watermark is then just below the first key of the oldest chunk still in
+ * flight, or the last key read when no chunk is. Registered as job listener, and as step and chunk listener of the
+ * producing step.
+ * <p>
+ * Once the producer completes the watermark is unbounded, if it fails {@link #await(long)} fails too. When a
+ * restarted job skips the producer because it completed before, the watermark is unbounded from the start.
+ */
+public class CommittedWatermark implements JobExecutionListener, StepExecutionListener, ChunkListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CommittedWatermark.class);
+
+    private final JobRepository jobRepository;
+
+    private final String stepName;
+
+    private final Map<Thread, Long> chunks = new HashMap<>();
+
+    private long lastRead;
+
+    private long watermark;
+
+    private boolean completed;
+
+    private boolean failed;
+
+    public CommittedWatermark(JobRepository jobRepository, String stepName) {
+        this.jobRepository = jobRepository;
+        this.stepName = stepName;
+    }
+
+    @Override
+    public synchronized void beforeJob(JobExecution jobExecution) {
+        chunks.clear();
+        lastRead = Long.MIN_VALUE;
+        watermark = Long.MIN_VALUE;
+        failed = false;
+        StepExecution last = jobRepository.getLastStepExecution(jobExecution.getJobInstance(), stepName);
+        completed = last != null && last.getStatus() == BatchStatus.COMPLETED;
+    }
+
+    @Override
+    public synchronized void afterJob(JobExecution jobExecution) {
+        if (!completed) {
+            failed = true;
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public synchronized ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED) {
+            completed = true;
+        } else {
+            failed = true;
+        }
+        log.debug("{} finished with watermark {}", stepName, watermark);
+        notifyAll();
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+    }
+
+    @Override
+    public synchronized void afterChunk(ChunkContext context) {
+        if (chunks.remove(Thread.currentThread()) == null) {
+            return;
+        }
+        long next = lastRead;
+        for (long firstKey : chunks.values()) {
+            next = Math.min(next, firstKey - 1);
+        }
+        if (next > watermark) {
+            watermark = next;
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+    }
+
+    /**
+     * Registers a key read by the producer, must be called under the same lock as the read itself.
+     */
+    synchronized void read(long key) {
+        if (key <= lastRead) {
+            throw new IllegalStateException("Keys must be read in ascending order, read " + key + " after " + lastRead);
+        }
+        lastRead = key;
+        chunks.putIfAbsent(Thread.currentThread(), key);
+    }
+
+    /**
+     * Waits until the watermark is above the given key and returns it, {@code Long.MAX_VALUE} once the producer
+     * completed.
+     *
+     * @throws IllegalStateException if the producer failed
+     */
+    public synchronized long await(long key) throws InterruptedException {
+        while (true) {
+            if (completed) {
+                return Long.MAX_VALUE;
+            }
+            if (failed) {
+                throw new IllegalStateException(stepName + " did not complete, rows past " + watermark + " were not committed");
+            }
+            if (watermark > key) {
+                return watermark;
+            }
+            wait();
+        }
+    }
+}
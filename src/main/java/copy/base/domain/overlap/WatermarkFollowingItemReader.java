@@ -0,0 +1,111 @@
+package copy.base.domain.overlap;
+
+import org.springframework.batch.item.ItemReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keyset reader following a {@link CommittedWatermark}: pages of {@code key > lastKey AND key <= watermark} are read
+ * in key order, waiting for the watermark to move whenever every committed row was read. The reader is exhausted
+ * once the producer completed and the last page is read. Reads are synchronized, so the reader can be shared by the
+ * threads of a multi-threaded step.
+ */
+public class WatermarkFollowingItemReader<T> implements ItemReader<T>, InitializingBean {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private String selectClause;
+
+    private String fromClause;
+
+    private String keyColumn;
+
+    private RowMapper<T> rowMapper;
+
+    private ToLongFunction<T> key;
+
+    private CommittedWatermark watermark;
+
+    private int pageSize = 1000;
+
+    private final Deque<T> page = new ArrayDeque<>();
+
+    private long lastKey = Long.MIN_VALUE;
+
+    private boolean exhausted;
+
+    private String sql;
+
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void setSelectClause(String selectClause) {
+        this.selectClause = selectClause;
+    }
+
+    public void setFromClause(String fromClause) {
+        this.fromClause = fromClause;
+    }
+
+    public void setKeyColumn(String keyColumn) {
+        this.keyColumn = keyColumn;
+    }
+
+    public void setRowMapper(RowMapper<T> rowMapper) {
+        this.rowMapper = rowMapper;
+    }
+
+    public void setKey(ToLongFunction<T> key) {
+        this.key = key;
+    }
+
+    public void setWatermark(CommittedWatermark watermark) {
+        this.watermark = watermark;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(jdbcTemplate, "A DataSource is required");
+        Assert.hasText(selectClause, "A select clause is required");
+        Assert.hasText(fromClause, "A from clause is required");
+        Assert.hasText(keyColumn, "A key column is required");
+        Assert.notNull(rowMapper, "A row mapper is required");
+        Assert.notNull(key, "A key function is required");
+        Assert.notNull(watermark, "A watermark is required");
+        Assert.isTrue(pageSize > 0, "The page size must be positive");
+        sql = selectClause + " " + fromClause + " WHERE " + keyColumn + " > ? AND " + keyColumn + " <= ? ORDER BY " + keyColumn + " LIMIT ?";
+    }
+
+    @Override
+    public synchronized T read() throws Exception {
+        while (page.isEmpty()) {
+            if (exhausted) {
+                return null;
+            }
+            long bound = watermark.await(lastKey);
+            List<T> rows = jdbcTemplate.query(sql, rowMapper, lastKey, bound, pageSize);
+            page.addAll(rows);
+            if (rows.size() == pageSize) {
+                lastKey = key.applyAsLong(rows.get(rows.size() - 1));
+            } else {
+                // every committed row up to the watermark was read
+                lastKey = bound;
+                exhausted = bound == Long.MAX_VALUE;
+            }
+        }
+        return page.poll();
+    }
+}
@@ -0,0 +1,303 @@
+package copy.base.domain.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs reading, processing and writing as overlapping stages instead of one after the other. The step thread
+ * reads into a bounded {@link RingBuffer}, {@code processors} threads transform the items into a second buffer
+ * and {@code writers} threads write chunks of {@code chunkSize} items, each chunk in its own transaction, so
+ * every writer holds its own target connection. A full buffer holds back the stage feeding it.
+ * <p>
+ * Items are written in no particular order and a failed execution is not restartable from where it stopped:
+ * the whole partition is read again.
+ */
+public class PipelineTasklet<I, O> implements Tasklet, InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineTasklet.class);
+
+    private static final Object END = new Object();
+
+    private static final int SPINS = 100;
+
+    private static final int YIELDS = 200;
+
+    private static final long PARK_NANOS = 50_000;
+
+    private ItemReader<? extends I> reader;
+
+    private ItemProcessor<? super I, ? extends O> processor;
+
+    private ItemWriter<? super O> writer;
+
+    private PlatformTransactionManager transactionManager;
+
+    private AsyncTaskExecutor taskExecutor;
+
+    private int processors = 2;
+
+    private int writers = 2;
+
+    private int bufferSize = 8192;
+
+    private int chunkSize = 2048;
+
+    public void setReader(ItemReader<? extends I> reader) {
+        this.reader = reader;
+    }
+
+    public void setProcessor(ItemProcessor<? super I, ? extends O> processor) {
+        this.processor = processor;
+    }
+
+    public void setWriter(ItemWriter<? super O> writer) {
+        this.writer = writer;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    public void setProcessors(int processors) {
+        this.processors = processors;
+    }
+
+    public void setWriters(int writers) {
+        this.writers = writers;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(reader, "A reader is required");
+        Assert.notNull(writer, "A writer is required");
+        Assert.notNull(transactionManager, "A transaction manager is required");
+        Assert.notNull(taskExecutor, "A task executor is required");
+        Assert.isTrue(processors > 0, "At least one processor thread is required");
+        Assert.isTrue(writers > 0, "At least one writer thread is required");
+        Assert.isTrue(chunkSize > 0, "Chunk size must be positive");
+        Assert.isTrue(bufferSize >= chunkSize, "Buffer size must hold at least one chunk");
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+        Run run = new Run();
+
+        List<Future<?>> processing = new ArrayList<>();
+        for (int i = 0; i < processors; i++) {
+            processing.add(taskExecutor.submit(() -> stage(run, stepExecution, () -> process(run))));
+        }
+        List<Future<?>> writing = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            writing.add(taskExecutor.submit(() -> stage(run, stepExecution, () -> write(run))));
+        }
+
+        try {
+            read(run);
+        } catch (Exception e) {
+            run.fail(e);
+        }
+        await(processing);
+        try {
+            for (int i = 0; i < writers; i++) {
+                run.put(run.processed, END);
+            }
+        } catch (RuntimeException e) {
+            run.fail(e);
+        }
+        await(writing);
+
+        Exception failure = run.failure.get();
+        if (failure != null) {
+            throw failure;
+        }
+        stepExecution.setReadCount(stepExecution.getReadCount() + (int) run.readCount.get());
+        contribution.incrementFilterCount((int) run.filterCount.get());
+        contribution.incrementWriteCount((int) run.writeCount.get());
+        log.debug("Pipelined {} items through {} processors and {} writers", run.writeCount.get(), processors, writers);
+        return RepeatStatus.FINISHED;
+    }
+
+    private void read(Run run) throws Exception {
+        ItemStream stream = reader instanceof ItemStream ? (ItemStream) reader : null;
+        if (stream != null) {
+            stream.open(new ExecutionContext());
+        }
+        try {
+            I item;
+            while (run.failure.get() == null && (item = reader.read()) != null) {
+                run.put(run.read, item);
+                run.readCount.incrementAndGet();
+            }
+            for (int i = 0; i < processors; i++) {
+                run.put(run.read, END);
+            }
+        } finally {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void process(Run run) throws Exception {
+        Object item;
+        while ((item = run.take(run.read)) != END) {
+            O result = processor == null ? (O) item : processor.process((I) item);
+            if (result == null) {
+                run.filterCount.incrementAndGet();
+            } else {
+                run.put(run.processed, result);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(Run run) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<O> chunk = new ArrayList<>(chunkSize);
+        Object item;
+        while ((item = run.take(run.processed)) != END) {
+            chunk.add((O) item);
+            if (chunk.size() == chunkSize) {
+                flush(run, transaction, chunk);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flush(run, transaction, chunk);
+        }
+    }
+
+    private void flush(Run run, TransactionTemplate transaction, List<O> chunk) {
+        transaction.execute(status -> {
+            try {
+                writer.write(chunk);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not write chunk", e);
+            }
+            return null;
+        });
+        run.writeCount.addAndGet(chunk.size());
+        chunk.clear();
+    }
+
+    private void stage(Run run, StepExecution stepExecution, Stage stage) {
+        // step scoped readers, processors and writers resolve against the step of the current thread
+        StepSynchronizationManager.register(stepExecution);
+        try {
+            stage.run();
+        } catch (Exception e) {
+            run.fail(e);
+        } finally {
+            StepSynchronizationManager.close();
+        }
+    }
+
+    private void await(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // stages record their own failures, anything else is a bug in the pipeline itself
+                throw new IllegalStateException("Pipeline stage failed unexpectedly", e.getCause());
+            }
+        }
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private class Run {
+
+        private final RingBuffer<Object> read = new RingBuffer<>(bufferSize);
+        private final RingBuffer<Object> processed = new RingBuffer<>(bufferSize);
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final AtomicLong readCount = new AtomicLong();
+        private final AtomicLong filterCount = new AtomicLong();
+        private final AtomicLong writeCount = new AtomicLong();
+
+        private void fail(Exception e) {
+            if (!failure.compareAndSet(null, e) && failure.get() != e) {
+                log.debug("Pipeline already failed, ignoring subsequent failure", e);
+            }
+        }
+
+        private void put(RingBuffer<Object> buffer, Object item) {
+            int idle = 0;
+            while (!buffer.offer(item)) {
+                idle = idle(idle);
+            }
+        }
+
+        private Object take(RingBuffer<Object> buffer) {
+            int idle = 0;
+            Object item;
+            while ((item = buffer.poll()) == null) {
+                idle = idle(idle);
+            }
+            return item;
+        }
+
+        private int idle(int idle) {
+            if (failure.get() != null) {
+                throw new PipelineAbortedException();
+            }
+            if (idle < SPINS) {
+                Thread.onSpinWait();
+            } else if (idle < YIELDS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            return idle + 1;
+        }
+    }
+
+    private static class PipelineAbortedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private PipelineAbortedException() {
+            super("Another pipeline stage failed", null, false, false);
+        }
+    }
+}
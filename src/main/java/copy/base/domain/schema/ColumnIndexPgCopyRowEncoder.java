@@ -0,0 +1,40 @@
+package copy.base.domain.schema;
+
+import copy.base.domain.datatarget.PgCopyBuffer;
+import copy.base.domain.datatarget.PgCopyRowEncoder;
+
+/**
+ * Encodes generic rows in the COPY text format, using the text form PostgreSQL accepts for each value.
+ */
+public class ColumnIndexPgCopyRowEncoder implements PgCopyRowEncoder<Object[]> {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Override
+    public void encode(Object[] row, PgCopyBuffer buffer) {
+        buffer.startRow(row.length);
+        for (Object value : row) {
+            if (value == null) {
+                buffer.addNull();
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+                buffer.addLong(((Number) value).longValue());
+            } else if (value instanceof byte[]) {
+                buffer.addString(hex((byte[]) value));
+            } else {
+                buffer.addString(value.toString());
+            }
+        }
+        buffer.endRow();
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[2 + bytes.length * 2];
+        chars[0] = '\\';
+        chars[1] = 'x';
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 + i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[3 + i * 2] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,31 @@
+package copy.base.domain.schema;
+
+import copy.base.domain.codec.ValueCodec;
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+public class ColumnIndexPreparedStatementSetter implements ItemPreparedStatementSetter<Object[]> {
+
+    private final int[] sqlTypes;
+
+    private final ValueCodec[] codecs;
+
+    public ColumnIndexPreparedStatementSetter(List<ColumnMetadata> columns) {
+        this.sqlTypes = columns.stream().mapToInt(ColumnMetadata::getJdbcType).toArray();
+        this.codecs = columns.stream().map(ColumnMetadata::getCodec).toArray(ValueCodec[]::new);
+    }
+
+    @Override
+    public void setValues(Object[] row, PreparedStatement ps) throws SQLException {
+        for (int i = 0; i < sqlTypes.length; i++) {
+            if (row[i] == null) {
+                ps.setNull(i + 1, sqlTypes[i]);
+            } else {
+                codecs[i].bind(ps, i + 1, row[i]);
+            }
+        }
+    }
+}
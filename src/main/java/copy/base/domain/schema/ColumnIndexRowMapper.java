@@ -0,0 +1,47 @@
+package copy.base.domain.schema;
+
+import copy.base.domain.codec.ValueCodec;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Maps a row to an array of column values in select list order, each read with the {@link ValueCodec} of its
+ * column.
+ */
+public class ColumnIndexRowMapper implements RowMapper<Object[]> {
+
+    private final ValueCodec[] codecs;
+
+    public ColumnIndexRowMapper(List<ColumnMetadata> columns) {
+        this.codecs = columns.stream().map(ColumnMetadata::getCodec).toArray(ValueCodec[]::new);
+    }
+
+    @Override
+    public Object[] mapRow(ResultSet resultSet, int i) throws SQLException {
+        Object[] row = new Object[codecs.length];
+        for (int column = 0; column < codecs.length; column++) {
+            row[column] = codecs[column].read(resultSet, column + 1);
+        }
+        return row;
+    }
+
+    /**
+     * Estimated size of a row in bytes: characters of text, bytes of binary values and eight bytes otherwise.
+     */
+    public static long size(Object[] row) {
+        long size = 0;
+        for (Object value : row) {
+            if (value instanceof String) {
+                size += ((String) value).length();
+            } else if (value instanceof byte[]) {
+                size += ((byte[]) value).length;
+            } else if (value != null) {
+                size += Long.BYTES;
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,40 @@
+package copy.base.domain.schema;
+
+import copy.base.domain.codec.ValueCodec;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class ColumnMetadata {
+
+    /**
+     * Declared size from which a column counts as wide; unbounded text and bytea columns report Integer.MAX_VALUE.
+     */
+    public static final int WIDE_SIZE = 64 * 1024;
+
+    private final String name;
+    private final int jdbcType;
+    private final String typeName;
+    private final int size;
+
+    public ValueCodec getCodec() {
+        return ValueCodec.of(jdbcType, typeName);
+    }
+
+    /**
+     * Whether the column holds a reference to a PostgreSQL large object, whose data is not part of the row.
+     */
+    public boolean isLargeObject() {
+        return "oid".equalsIgnoreCase(typeName);
+    }
+
+    /**
+     * Whether values of the column may be too large to hold many of them in memory at once.
+     */
+    public boolean isWide() {
+        return size >= WIDE_SIZE || isLargeObject();
+    }
+}
@@ -0,0 +1,113 @@
+package copy.base.domain.schema;
+
+import org.postgresql.PGConnection;
+import org.postgresql.largeobject.LargeObject;
+import org.postgresql.largeobject.LargeObjectManager;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Copies the large objects referenced by the oid columns of generic rows before the rows are written: the data is
+ * streamed from a source large object into a new target one through a fixed-size buffer, and the row refers to the
+ * new object. Source objects are read in a read-only transaction of their own; target objects are created on the
+ * connection of the current target transaction, which must be open and which the delegate should write the rows in,
+ * so that rolled back rows leave no objects behind.
+ */
+public class LargeObjectCopyingItemWriter implements ItemWriter<Object[]>, InitializingBean {
+
+    private DataSource source;
+
+    private DataSource target;
+
+    private ItemWriter<Object[]> delegate;
+
+    private int[] columns;
+
+    private int bufferSize = 64 * 1024;
+
+    public void setSource(DataSource source) {
+        this.source = source;
+    }
+
+    public void setTarget(DataSource target) {
+        this.target = target;
+    }
+
+    public void setDelegate(ItemWriter<Object[]> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Indexes of the oid columns in a row.
+     */
+    public void setColumns(int... columns) {
+        this.columns = columns;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(source, "A source DataSource is required");
+        Assert.notNull(target, "A target DataSource is required");
+        Assert.notNull(delegate, "A delegate writer is required");
+        Assert.isTrue(columns != null && columns.length > 0, "Columns are required");
+        Assert.isTrue(bufferSize > 0, "The buffer size must be positive");
+    }
+
+    @Override
+    public void write(List<? extends Object[]> items) throws Exception {
+        Connection targetConnection = DataSourceUtils.getConnection(target);
+        try (Connection sourceConnection = source.getConnection()) {
+            Assert.state(!targetConnection.getAutoCommit(), "Large objects must be created in a target transaction");
+            sourceConnection.setAutoCommit(false);
+            sourceConnection.setReadOnly(true);
+            try {
+                LargeObjectManager from = sourceConnection.unwrap(PGConnection.class).getLargeObjectAPI();
+                LargeObjectManager to = targetConnection.unwrap(PGConnection.class).getLargeObjectAPI();
+                byte[] buffer = new byte[bufferSize];
+                for (Object[] row : items) {
+                    for (int column : columns) {
+                        if (row[column] != null) {
+                            row[column] = copy(from, to, ((Number) row[column]).longValue(), buffer);
+                        }
+                    }
+                }
+            } finally {
+                sourceConnection.rollback();
+                sourceConnection.setReadOnly(false);
+                sourceConnection.setAutoCommit(true);
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(targetConnection, target);
+        }
+        delegate.write(items);
+    }
+
+    private static long copy(LargeObjectManager from, LargeObjectManager to, long oid, byte[] buffer) throws Exception {
+        long copy = to.createLO(LargeObjectManager.READWRITE);
+        LargeObject in = from.open(oid, LargeObjectManager.READ);
+        try {
+            LargeObject out = to.open(copy, LargeObjectManager.WRITE);
+            try {
+                int read;
+                while ((read = in.read(buffer, 0, buffer.length)) > 0) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+        return copy;
+    }
+}
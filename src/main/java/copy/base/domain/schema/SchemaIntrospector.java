@@ -0,0 +1,91 @@
+package copy.base.domain.schema;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Reads tables, columns, primary keys and foreign key dependencies of one schema through {@link DatabaseMetaData}.
+ */
+public class SchemaIntrospector {
+
+    private final DataSource dataSource;
+
+    private Pattern include = Pattern.compile(".*");
+
+    private Pattern exclude = Pattern.compile("batch_.*", Pattern.CASE_INSENSITIVE);
+
+    public SchemaIntrospector(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void setInclude(String include) {
+        this.include = Pattern.compile(include, Pattern.CASE_INSENSITIVE);
+    }
+
+    public void setExclude(String exclude) {
+        this.exclude = Pattern.compile(exclude, Pattern.CASE_INSENSITIVE);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<TableMetadata> introspect(String schema) throws MetaDataAccessException {
+        return (List<TableMetadata>) JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> {
+            try {
+                return introspect(metaData, schema);
+            } catch (SQLException e) {
+                throw new MetaDataAccessException("Unable to read schema " + schema, e);
+            }
+        });
+    }
+
+    private List<TableMetadata> introspect(DatabaseMetaData metaData, String schema) throws SQLException {
+        Map<String, TableMetadata> tables = new LinkedHashMap<>();
+        try (ResultSet resultSet = metaData.getTables(null, schema, "%", new String[]{"TABLE"})) {
+            while (resultSet.next()) {
+                String name = resultSet.getString("TABLE_NAME");
+                if (include.matcher(name).matches() && !exclude.matcher(name).matches()) {
+                    tables.put(name, new TableMetadata(resultSet.getString("TABLE_SCHEM"), name));
+                }
+            }
+        }
+
+        for (TableMetadata table : tables.values()) {
+            try (ResultSet resultSet = metaData.getColumns(null, table.getSchema(), table.getName(), "%")) {
+                while (resultSet.next()) {
+                    table.getColumns().add(new ColumnMetadata(resultSet.getString("COLUMN_NAME"),
+                            resultSet.getInt("DATA_TYPE"),
+                            resultSet.getString("TYPE_NAME"),
+                            resultSet.getInt("COLUMN_SIZE")));
+                }
+            }
+
+            Map<Short, String> primaryKey = new TreeMap<>();
+            try (ResultSet resultSet = metaData.getPrimaryKeys(null, table.getSchema(), table.getName())) {
+                while (resultSet.next()) {
+                    primaryKey.put(resultSet.getShort("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+                }
+            }
+            table.getPrimaryKey().addAll(primaryKey.values());
+
+            try (ResultSet resultSet = metaData.getImportedKeys(null, table.getSchema(), table.getName())) {
+                while (resultSet.next()) {
+                    String referenced = resultSet.getString("PKTABLE_NAME");
+                    if (!referenced.equals(table.getName()) && tables.containsKey(referenced)) {
+                        table.getDependencies().add(referenced);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(tables.values());
+    }
+}
@@ -0,0 +1,56 @@
+package copy.base.domain.schema;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Groups tables into levels in foreign key order: every table only references tables of earlier levels,
+ * so the tables of one level can be copied in parallel. Tables referencing each other in a cycle cannot be
+ * copied with plain inserts in any order, so a cycle fails instead of a copy part-way through.
+ */
+public final class TableDependencyOrder {
+
+    private TableDependencyOrder() {
+    }
+
+    public static List<List<TableMetadata>> levels(List<TableMetadata> tables) {
+        List<List<TableMetadata>> levels = new ArrayList<>();
+        List<TableMetadata> remaining = new ArrayList<>(tables);
+        Set<String> copied = new HashSet<>();
+
+        while (!remaining.isEmpty()) {
+            List<TableMetadata> level = new ArrayList<>();
+            for (TableMetadata table : remaining) {
+                if (copied.containsAll(table.getDependencies())) {
+                    level.add(table);
+                }
+            }
+            if (level.isEmpty()) {
+                throw new IllegalStateException("Foreign key cycle between tables " + String.join(", ", cycle(remaining))
+                        + ", exclude some of them from the copy or drop one of their foreign keys on the target");
+            }
+            remaining.removeAll(level);
+            level.forEach(table -> copied.add(table.getName()));
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    /**
+     * Names of the tables left once those that no remaining table references are peeled off: the tables of the
+     * cycles, without the tables that only depend on them.
+     */
+    private static List<String> cycle(List<TableMetadata> remaining) {
+        List<TableMetadata> tables = new ArrayList<>(remaining);
+        boolean peeled = true;
+        while (peeled) {
+            Set<String> referenced = new HashSet<>();
+            tables.forEach(table -> referenced.addAll(table.getDependencies()));
+            peeled = tables.removeIf(table -> !referenced.contains(table.getName()));
+        }
+        return tables.stream().map(TableMetadata::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,45 @@
+package copy.base.domain.schema;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Getter
+@ToString
+public class TableMetadata {
+    private final String schema;
+    private final String name;
+    private final List<ColumnMetadata> columns = new ArrayList<>();
+    private final List<String> primaryKey = new ArrayList<>();
+    private final Set<String> dependencies = new LinkedHashSet<>();
+
+    public TableMetadata(String schema, String name) {
+        this.schema = schema;
+        this.name = name;
+    }
+
+    public String getQualifiedName() {
+        return schema == null ? quote(name) : quote(schema) + "." + quote(name);
+    }
+
+    public String[] getQuotedColumnNames() {
+        return columns.stream().map(column -> quote(column.getName())).toArray(String[]::new);
+    }
+
+    public int indexOf(String column) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
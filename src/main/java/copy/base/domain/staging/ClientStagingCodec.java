@@ -0,0 +1,28 @@
+package copy.base.domain.staging;
+
+import copy.base.domain.datasource.Client;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class ClientStagingCodec implements StagingRowCodec<Client> {
+
+    @Override
+    public void write(Client client, DataOutput out) throws IOException {
+        out.writeLong(client.getId());
+        StagingFormat.writeString(out, client.getFirstName());
+        StagingFormat.writeString(out, client.getLastName());
+        StagingFormat.writeString(out, client.getEmail());
+        StagingFormat.writeString(out, client.getPhone());
+    }
+
+    @Override
+    public Client read(DataInput in) throws IOException {
+        return new Client(in.readLong(),
+                StagingFormat.readString(in),
+                StagingFormat.readString(in),
+                StagingFormat.readString(in),
+                StagingFormat.readString(in));
+    }
+}
@@ -0,0 +1,77 @@
+package copy.base.domain.staging;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Header of a block of a staging file, with the offset it starts at.
+ */
+class StagingBlock {
+
+    final long offset;
+    final int rows;
+    final long minKey;
+    final long maxKey;
+    final int rawLength;
+    final int length;
+    final int crc;
+
+    StagingBlock(long offset, int rows, long minKey, long maxKey, int rawLength, int length, int crc) {
+        this.offset = offset;
+        this.rows = rows;
+        this.minKey = minKey;
+        this.maxKey = maxKey;
+        this.rawLength = rawLength;
+        this.length = length;
+        this.crc = crc;
+    }
+
+    /**
+     * Offset of the next block.
+     */
+    long end() {
+        return offset + StagingFormat.BLOCK_HEADER_SIZE + length;
+    }
+
+    void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(rows).putLong(minKey).putLong(maxKey).putInt(rawLength).putInt(length).putInt(crc);
+    }
+
+    void writeIndexEntry(ByteBuffer buffer) {
+        buffer.putLong(offset).putInt(rows).putLong(minKey).putLong(maxKey);
+    }
+
+    static StagingBlock readHeader(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(StagingFormat.BLOCK_HEADER_SIZE);
+        readFully(channel, buffer, offset);
+        buffer.flip();
+        StagingBlock block = new StagingBlock(offset, buffer.getInt(), buffer.getLong(), buffer.getLong(),
+                buffer.getInt(), buffer.getInt(), buffer.getInt());
+        if (block.rows <= 0 || block.rawLength < 0 || block.length < 0 || block.minKey > block.maxKey) {
+            throw new IOException("Invalid block header at offset " + offset);
+        }
+        return block;
+    }
+
+    static StagingBlock readIndexEntry(ByteBuffer buffer) {
+        return new StagingBlock(buffer.getLong(), buffer.getInt(), buffer.getLong(), buffer.getLong(), 0, 0, 0);
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file at offset " + position);
+            }
+            position += read;
+        }
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
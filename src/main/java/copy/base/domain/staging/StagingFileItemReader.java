@@ -0,0 +1,210 @@
+package copy.base.domain.staging;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.NonTransientResourceException;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the items of a staging file in key order, checking the CRC32 of the index and of every block. With a key
+ * to start after, the blocks up to it are skipped through the index, so a restarted partition binds the last key
+ * it committed instead of reading the file again.
+ */
+public class StagingFileItemReader<T> implements ItemStreamReader<T>, InitializingBean {
+
+    private Path file;
+
+    private StagingRowCodec<T> codec;
+
+    private ToLongFunction<T> key;
+
+    private Long startAfter;
+
+    private final CRC32 crc = new CRC32();
+
+    private List<StagingBlock> blocks;
+
+    private int nextBlock;
+
+    private int remaining;
+
+    private FileChannel channel;
+
+    private Inflater inflater;
+
+    private ByteBuffer compressed = ByteBuffer.allocate(0);
+
+    private byte[] raw = new byte[0];
+
+    private DataInputStream in;
+
+    public void setFile(Path file) {
+        this.file = file;
+    }
+
+    public void setCodec(StagingRowCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    public void setKey(ToLongFunction<T> key) {
+        this.key = key;
+    }
+
+    /**
+     * Key after which to start reading, from the beginning when {@code null}.
+     */
+    public void setStartAfter(Long startAfter) {
+        this.startAfter = startAfter;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(file, "A file is required");
+        Assert.notNull(codec, "A codec is required");
+        Assert.notNull(key, "A key function is required");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            readIndex();
+        } catch (IOException e) {
+            close();
+            throw new ItemStreamException("Unable to open staging file " + file, e);
+        }
+        nextBlock = 0;
+        remaining = 0;
+        if (startAfter != null) {
+            while (nextBlock < blocks.size() && blocks.get(nextBlock).maxKey <= startAfter) {
+                nextBlock++;
+            }
+        }
+        inflater = new Inflater();
+    }
+
+    @Override
+    public T read() throws Exception {
+        while (true) {
+            while (remaining == 0) {
+                if (nextBlock == blocks.size()) {
+                    return null;
+                }
+                readBlock(blocks.get(nextBlock++));
+            }
+            remaining--;
+            T item = codec.read(in);
+            if (startAfter == null || key.applyAsLong(item) > startAfter) {
+                return item;
+            }
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+    }
+
+    @Override
+    public void close() {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Unable to close " + file, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    private void readIndex() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(StagingFormat.HEADER_SIZE);
+        StagingBlock.readFully(channel, header, 0);
+        header.flip();
+        if (size < StagingFormat.HEADER_SIZE + StagingFormat.TRAILER_SIZE || header.getInt() != StagingFormat.MAGIC) {
+            throw new IOException(file + " is not a staging file");
+        }
+        int version = header.getInt();
+        if (version != StagingFormat.VERSION) {
+            throw new IOException(file + " has unsupported version " + version);
+        }
+
+        ByteBuffer trailer = ByteBuffer.allocate(StagingFormat.TRAILER_SIZE);
+        StagingBlock.readFully(channel, trailer, size - StagingFormat.TRAILER_SIZE);
+        trailer.flip();
+        long indexOffset = trailer.getLong();
+        int blockCount = trailer.getInt();
+        trailer.getLong();
+        int indexCrc = trailer.getInt();
+        if (trailer.getInt() != StagingFormat.MAGIC
+                || indexOffset + (long) blockCount * StagingFormat.INDEX_ENTRY_SIZE != size - StagingFormat.TRAILER_SIZE) {
+            throw new IOException(file + " is truncated or has no index");
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(blockCount * StagingFormat.INDEX_ENTRY_SIZE);
+        StagingBlock.readFully(channel, index, indexOffset);
+        crc.reset();
+        crc.update(index.array(), 0, index.capacity());
+        if ((int) crc.getValue() != indexCrc) {
+            throw new IOException("Checksum mismatch in the index of " + file);
+        }
+        index.flip();
+        blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            blocks.add(StagingBlock.readIndexEntry(index));
+        }
+    }
+
+    private void readBlock(StagingBlock entry) throws IOException {
+        StagingBlock block = StagingBlock.readHeader(channel, entry.offset);
+        if (block.rows != entry.rows || block.minKey != entry.minKey || block.maxKey != entry.maxKey) {
+            throw new NonTransientResourceException("Block at offset " + entry.offset + " of " + file + " does not match the index");
+        }
+        if (compressed.capacity() < block.length) {
+            compressed = ByteBuffer.allocate(block.length);
+        }
+        compressed.clear().limit(block.length);
+        StagingBlock.readFully(channel, compressed, block.offset + StagingFormat.BLOCK_HEADER_SIZE);
+        if (raw.length < block.rawLength) {
+            raw = new byte[block.rawLength];
+        }
+        inflater.reset();
+        inflater.setInput(compressed.array(), 0, block.length);
+        try {
+            int length = inflater.inflate(raw, 0, block.rawLength);
+            if (length != block.rawLength || !inflater.finished()) {
+                throw new NonTransientResourceException("Block at offset " + block.offset + " of " + file + " is truncated");
+            }
+        } catch (DataFormatException e) {
+            throw new NonTransientResourceException("Block at offset " + block.offset + " of " + file + " is corrupt", e);
+        }
+        crc.reset();
+        crc.update(raw, 0, block.rawLength);
+        if ((int) crc.getValue() != block.crc) {
+            throw new NonTransientResourceException("Checksum mismatch in the block at offset " + block.offset + " of " + file);
+        }
+        in = new DataInputStream(new ByteArrayInputStream(raw, 0, block.rawLength));
+        remaining = block.rows;
+    }
+}
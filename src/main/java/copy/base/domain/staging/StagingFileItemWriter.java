@@ -0,0 +1,271 @@
+package copy.base.domain.staging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the items of a partition to a staging file in the {@link StagingFormat}, each chunk as one compressed
+ * block. Items must come in ascending key order, as a partition of the source is read.
+ * <p>
+ * The file is written with the {@value StagingFormat#PART_EXTENSION} extension and the offset after the last
+ * committed block is saved as {@code <name>.position}; a restarted step truncates the file there and rebuilds the
+ * index from the block headers. Once the step completed, registered as step listener, the index is written and the
+ * file renamed to its final name.
+ */
+public class StagingFileItemWriter<T> extends ItemStreamSupport implements ItemStreamWriter<T>, StepExecutionListener, InitializingBean {
+
+    public static final String POSITION = "position";
+
+    private static final Logger log = LoggerFactory.getLogger(StagingFileItemWriter.class);
+
+    private Path file;
+
+    private StagingRowCodec<T> codec;
+
+    private ToLongFunction<T> key;
+
+    private int compressionLevel = Deflater.BEST_SPEED;
+
+    private final BlockBuffer raw = new BlockBuffer();
+
+    private final DataOutputStream out = new DataOutputStream(raw);
+
+    private final CRC32 crc = new CRC32();
+
+    private final List<StagingBlock> blocks = new ArrayList<>();
+
+    private Deflater deflater;
+
+    private byte[] compressed = new byte[0];
+
+    private Path partFile;
+
+    private FileChannel channel;
+
+    private long position;
+
+    private long rows;
+
+    public void setFile(Path file) {
+        this.file = file;
+    }
+
+    public void setCodec(StagingRowCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    public void setKey(ToLongFunction<T> key) {
+        this.key = key;
+    }
+
+    /**
+     * Deflate level of the blocks, from 1 (fastest) to 9 (smallest).
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(file, "A file is required");
+        Assert.notNull(codec, "A codec is required");
+        Assert.notNull(key, "A key function is required");
+        Assert.isTrue(compressionLevel >= Deflater.BEST_SPEED && compressionLevel <= Deflater.BEST_COMPRESSION,
+                "The compression level must be between 1 and 9");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        partFile = file.resolveSibling(file.getFileName() + StagingFormat.PART_EXTENSION);
+        String positionKey = getExecutionContextKey(POSITION);
+        blocks.clear();
+        rows = 0;
+        try {
+            if (executionContext.containsKey(positionKey)) {
+                position = executionContext.getLong(positionKey);
+                channel = FileChannel.open(partFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                if (channel.size() < position) {
+                    throw new ItemStreamException(partFile + " is shorter than its last committed block, export it again");
+                }
+                channel.truncate(position);
+                for (long offset = StagingFormat.HEADER_SIZE; offset < position; ) {
+                    StagingBlock block = StagingBlock.readHeader(channel, offset);
+                    blocks.add(block);
+                    rows += block.rows;
+                    offset = block.end();
+                }
+                log.info("Resuming {} after {} rows", partFile, rows);
+            } else {
+                Files.deleteIfExists(file);
+                channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                ByteBuffer header = ByteBuffer.allocate(StagingFormat.HEADER_SIZE);
+                header.putInt(StagingFormat.MAGIC).putInt(StagingFormat.VERSION).flip();
+                StagingBlock.writeFully(channel, header, 0);
+                position = StagingFormat.HEADER_SIZE;
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Unable to open " + partFile, e);
+        }
+        deflater = new Deflater(compressionLevel);
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+        long minKey = key.applyAsLong(items.get(0));
+        boolean first = blocks.isEmpty();
+        long lastKey = first ? minKey : blocks.get(blocks.size() - 1).maxKey;
+        raw.reset();
+        for (T item : items) {
+            long itemKey = key.applyAsLong(item);
+            if (itemKey <= lastKey && !first) {
+                throw new IllegalStateException("Keys must be written in ascending order, got " + itemKey + " after " + lastKey);
+            }
+            first = false;
+            lastKey = itemKey;
+            codec.write(item, out);
+        }
+        out.flush();
+
+        crc.reset();
+        crc.update(raw.array(), 0, raw.size());
+        int length = deflate(raw.array(), raw.size());
+        StagingBlock block = new StagingBlock(position, items.size(), minKey, lastKey, raw.size(), length, (int) crc.getValue());
+
+        ByteBuffer header = ByteBuffer.allocate(StagingFormat.BLOCK_HEADER_SIZE);
+        block.writeHeader(header);
+        header.flip();
+        StagingBlock.writeFully(channel, header, position);
+        StagingBlock.writeFully(channel, ByteBuffer.wrap(compressed, 0, length), position + StagingFormat.BLOCK_HEADER_SIZE);
+        position = block.end();
+        blocks.add(block);
+        rows += items.size();
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            // the saved position must not point past what survives a crash
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ItemStreamException("Unable to flush " + partFile, e);
+        }
+        executionContext.putLong(getExecutionContextKey(POSITION), position);
+    }
+
+    @Override
+    public void close() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Unable to close " + partFile, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getStatus() != BatchStatus.COMPLETED) {
+            return null;
+        }
+        try {
+            finish();
+            log.info("Exported {} rows in {} blocks to {} ({} bytes)", rows, blocks.size(), file, position);
+            return null;
+        } catch (Exception e) {
+            log.error("Finishing {} failed", partFile, e);
+            stepExecution.setStatus(BatchStatus.FAILED);
+            stepExecution.addFailureException(e);
+            return ExitStatus.FAILED.addExitDescription(e);
+        }
+    }
+
+    private void finish() throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(blocks.size() * StagingFormat.INDEX_ENTRY_SIZE);
+        for (StagingBlock block : blocks) {
+            block.writeIndexEntry(index);
+        }
+        crc.reset();
+        crc.update(index.array(), 0, index.position());
+        index.flip();
+        ByteBuffer trailer = ByteBuffer.allocate(StagingFormat.TRAILER_SIZE);
+        trailer.putLong(position).putInt(blocks.size()).putLong(rows).putInt((int) crc.getValue()).putInt(StagingFormat.MAGIC).flip();
+
+        StagingBlock.writeFully(channel, index, position);
+        StagingBlock.writeFully(channel, trailer, position + blocks.size() * StagingFormat.INDEX_ENTRY_SIZE);
+        channel.force(true);
+        close();
+        Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int deflate(byte[] input, int inputLength) {
+        deflater.reset();
+        deflater.setInput(input, 0, inputLength);
+        deflater.finish();
+        if (compressed.length < inputLength + 64) {
+            compressed = new byte[inputLength + inputLength / 8 + 64];
+        }
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        return length;
+    }
+
+    private static class BlockBuffer extends ByteArrayOutputStream {
+
+        BlockBuffer() {
+            super(64 * 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package copy.base.domain.staging;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One partition per staging file of a directory, whatever the grid size. Fails while the directory holds files of
+ * an export that did not complete.
+ */
+public class StagingFilePartitioner implements Partitioner {
+
+    public static final String FILE_NAME = "fileName";
+
+    private Path directory;
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        List<Path> files;
+        try {
+            if (!StagingFormat.partFiles(directory).isEmpty()) {
+                throw new IllegalStateException("The export to " + directory + " did not complete, restart it before replaying");
+            }
+            files = StagingFormat.files(directory);
+        } catch (IOException e) {
+            throw new ItemStreamException("Unable to list the staging files of " + directory, e);
+        }
+        if (files.isEmpty()) {
+            throw new IllegalStateException("No staging files found in " + directory);
+        }
+        Map<String, ExecutionContext> result = new HashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            ExecutionContext value = new ExecutionContext();
+            value.putString(FILE_NAME, files.get(i).toString());
+            result.put("partition" + i, value);
+        }
+        return result;
+    }
+}
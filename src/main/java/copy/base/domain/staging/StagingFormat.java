@@ -0,0 +1,106 @@
+package copy.base.domain.staging;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Layout of a staging file, a partition of rows exported from the source to be replayed into targets later:
+ * <pre>
+ * file    := header block* index trailer
+ * header  := magic:int version:int
+ * block   := rows:int minKey:long maxKey:long rawLength:int length:int crc:int data:byte[length]
+ * index   := (offset:long rows:int minKey:long maxKey:long)*   one entry per block
+ * trailer := indexOffset:long blocks:int rows:long crc:int magic:int
+ * </pre>
+ * The data of a block is the rows encoded by a {@link StagingRowCodec} in ascending key order, deflated; its crc is
+ * the CRC32 of the encoded rows. The crc of the trailer is the CRC32 of the index. A file being written has the
+ * {@value #PART_EXTENSION} extension appended and no index yet.
+ */
+public final class StagingFormat {
+
+    public static final String EXTENSION = ".stg";
+
+    public static final String PART_EXTENSION = ".part";
+
+    static final int MAGIC = 0x43425354;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    static final int BLOCK_HEADER_SIZE = 4 * Integer.BYTES + 2 * Long.BYTES;
+
+    static final int INDEX_ENTRY_SIZE = Integer.BYTES + 3 * Long.BYTES;
+
+    static final int TRAILER_SIZE = 3 * Integer.BYTES + 2 * Long.BYTES;
+
+    private StagingFormat() {
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Complete staging files of a directory, ordered by name.
+     */
+    public static List<Path> files(Path directory) throws IOException {
+        return list(directory, "*" + EXTENSION);
+    }
+
+    /**
+     * Staging files of a directory that are still being written or whose export failed.
+     */
+    public static List<Path> partFiles(Path directory) throws IOException {
+        return list(directory, "*" + EXTENSION + PART_EXTENSION);
+    }
+
+    /**
+     * Deletes the staging files of a directory, complete or not, and creates the directory if needed.
+     */
+    public static void clear(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Path file : files(directory)) {
+            Files.delete(file);
+        }
+        for (Path file : partFiles(directory)) {
+            Files.delete(file);
+        }
+    }
+
+    private static List<Path> list(Path directory, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        return files;
+    }
+}
@@ -0,0 +1,15 @@
+package copy.base.domain.staging;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encodes the rows of one table into the blocks of a staging file.
+ */
+public interface StagingRowCodec<T> {
+
+    void write(T item, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
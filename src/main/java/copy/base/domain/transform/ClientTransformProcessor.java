@@ -0,0 +1,65 @@
+package copy.base.domain.transform;
+
+import copy.base.domain.datasource.Client;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Applies the column transforms configured for the client table, compiled once when the processor is created.
+ * Returns the incoming item untouched when no value changes.
+ */
+public class ClientTransformProcessor implements ItemProcessor<Client, Client> {
+
+    private final ColumnTransform firstName;
+    private final ColumnTransform lastName;
+    private final ColumnTransform email;
+    private final ColumnTransform phone;
+
+    public ClientTransformProcessor(Map<String, String> specifications) {
+        Map<String, String> columns = specifications == null ? Collections.emptyMap() : specifications;
+        ColumnTransform firstName = ColumnTransform.IDENTITY;
+        ColumnTransform lastName = ColumnTransform.IDENTITY;
+        ColumnTransform email = ColumnTransform.IDENTITY;
+        ColumnTransform phone = ColumnTransform.IDENTITY;
+        for (Map.Entry<String, String> column : columns.entrySet()) {
+            ColumnTransform transform = ColumnTransforms.compile(column.getValue());
+            switch (column.getKey().toLowerCase(Locale.ROOT)) {
+                case "firstname":
+                    firstName = transform;
+                    break;
+                case "lastname":
+                    lastName = transform;
+                    break;
+                case "email":
+                    email = transform;
+                    break;
+                case "phone":
+                    phone = transform;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Column " + column.getKey() + " of client cannot be transformed");
+            }
+        }
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
+    }
+
+    @Override
+    public Client process(Client client) {
+        String newFirstName = firstName.apply(client.getFirstName());
+        String newLastName = lastName.apply(client.getLastName());
+        String newEmail = email.apply(client.getEmail());
+        String newPhone = phone.apply(client.getPhone());
+
+        if (newFirstName == client.getFirstName() && newLastName == client.getLastName()
+                && newEmail == client.getEmail() && newPhone == client.getPhone()) {
+            return client;
+        }
+        return new Client(client.getId(), newFirstName, newLastName, newEmail, newPhone);
+    }
+}
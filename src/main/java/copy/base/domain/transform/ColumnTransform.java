@@ -0,0 +1,19 @@
+package copy.base.domain.transform;
+
+@FunctionalInterface
+public interface ColumnTransform {
+
+    ColumnTransform IDENTITY = value -> value;
+
+    String apply(String value);
+
+    default ColumnTransform andThen(ColumnTransform next) {
+        if (this == IDENTITY) {
+            return next;
+        }
+        if (next == IDENTITY) {
+            return this;
+        }
+        return value -> next.apply(apply(value));
+    }
+}
@@ -0,0 +1,143 @@
+package copy.base.domain.transform;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles textual column transform specifications into {@link ColumnTransform} chains.
+ * A specification is a list of operations separated by {@code |}, applied from left to right:
+ * <ul>
+ * <li>{@code upper}, {@code lower} - case mapping with an ASCII fast path, locale independent</li>
+ * <li>{@code trim} - removes leading and trailing whitespace</li>
+ * <li>{@code mask} or {@code mask:N} - replaces every character but the last N with {@code *}</li>
+ * <li>{@code replace:REGEX=>REPLACEMENT} - replaces all matches of the regular expression</li>
+ * <li>{@code const:VALUE} - replaces the value with a constant</li>
+ * </ul>
+ */
+public final class ColumnTransforms {
+
+    private static final char MASK = '*';
+
+    private ColumnTransforms() {
+    }
+
+    public static ColumnTransform compile(String specification) {
+        ColumnTransform transform = ColumnTransform.IDENTITY;
+        if (specification == null || specification.trim().isEmpty()) {
+            return transform;
+        }
+        for (String operation : specification.split("\\|")) {
+            transform = transform.andThen(operation(operation.trim()));
+        }
+        return transform;
+    }
+
+    private static ColumnTransform operation(String operation) {
+        int colon = operation.indexOf(':');
+        String name = (colon < 0 ? operation : operation.substring(0, colon)).toLowerCase(Locale.ROOT);
+        String argument = colon < 0 ? null : operation.substring(colon + 1);
+
+        switch (name) {
+            case "upper":
+                return ColumnTransforms::upper;
+            case "lower":
+                return ColumnTransforms::lower;
+            case "trim":
+                return value -> value == null ? null : value.trim();
+            case "mask":
+                int keep = argument == null ? 0 : Integer.parseInt(argument.trim());
+                return value -> mask(value, keep);
+            case "replace":
+                return replace(argument);
+            case "const":
+                String constant = argument == null ? "" : argument;
+                return value -> constant;
+            default:
+                throw new IllegalArgumentException("Unknown column transform: " + operation);
+        }
+    }
+
+    static String upper(String value) {
+        if (value == null) {
+            return null;
+        }
+        int length = value.length();
+        int first = -1;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return value.toUpperCase(Locale.ROOT);
+            }
+            if (first < 0 && c >= 'a' && c <= 'z') {
+                first = i;
+            }
+        }
+        if (first < 0) {
+            return value;
+        }
+        char[] chars = value.toCharArray();
+        for (int i = first; i < length; i++) {
+            char c = chars[i];
+            if (c >= 'a' && c <= 'z') {
+                chars[i] = (char) (c - ('a' - 'A'));
+            }
+        }
+        return new String(chars);
+    }
+
+    static String lower(String value) {
+        if (value == null) {
+            return null;
+        }
+        int length = value.length();
+        int first = -1;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return value.toLowerCase(Locale.ROOT);
+            }
+            if (first < 0 && c >= 'A' && c <= 'Z') {
+                first = i;
+            }
+        }
+        if (first < 0) {
+            return value;
+        }
+        char[] chars = value.toCharArray();
+        for (int i = first; i < length; i++) {
+            char c = chars[i];
+            if (c >= 'A' && c <= 'Z') {
+                chars[i] = (char) (c + ('a' - 'A'));
+            }
+        }
+        return new String(chars);
+    }
+
+    private static String mask(String value, int keep) {
+        if (value == null || value.length() <= keep) {
+            return value;
+        }
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length - keep; i++) {
+            chars[i] = MASK;
+        }
+        return new String(chars);
+    }
+
+    private static ColumnTransform replace(String argument) {
+        int arrow = argument == null ? -1 : argument.lastIndexOf("=>");
+        if (arrow < 0) {
+            throw new IllegalArgumentException("Expected replace:REGEX=>REPLACEMENT but got replace:" + argument);
+        }
+        Pattern pattern = Pattern.compile(argument.substring(0, arrow));
+        String replacement = argument.substring(arrow + 2);
+        return value -> {
+            if (value == null) {
+                return null;
+            }
+            Matcher matcher = pattern.matcher(value);
+            return matcher.find() ? matcher.replaceAll(replacement) : value;
+        };
+    }
+}
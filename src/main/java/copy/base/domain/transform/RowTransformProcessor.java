@@ -0,0 +1,42 @@
+package copy.base.domain.transform;
+
+import copy.base.domain.schema.TableMetadata;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.util.Map;
+
+/**
+ * Applies column transforms to generic rows of one table. Column positions are resolved when the processor is
+ * created, so processing a row is a plain loop over the transformed indexes.
+ */
+public class RowTransformProcessor implements ItemProcessor<Object[], Object[]> {
+
+    private final int[] indexes;
+    private final ColumnTransform[] transforms;
+
+    public RowTransformProcessor(TableMetadata table, Map<String, String> specifications) {
+        indexes = new int[specifications.size()];
+        transforms = new ColumnTransform[specifications.size()];
+        int i = 0;
+        for (Map.Entry<String, String> column : specifications.entrySet()) {
+            int index = table.indexOf(column.getKey());
+            if (index < 0) {
+                throw new IllegalArgumentException("Table " + table.getName() + " has no column " + column.getKey());
+            }
+            indexes[i] = index;
+            transforms[i] = ColumnTransforms.compile(column.getValue());
+            i++;
+        }
+    }
+
+    @Override
+    public Object[] process(Object[] row) {
+        for (int i = 0; i < indexes.length; i++) {
+            Object value = row[indexes[i]];
+            if (value == null || value instanceof String) {
+                row[indexes[i]] = transforms[i].apply((String) value);
+            }
+        }
+        return row;
+    }
+}
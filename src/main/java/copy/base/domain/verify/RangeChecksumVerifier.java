@@ -0,0 +1,301 @@
+package copy.base.domain.verify;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Compares a table on source and target without pulling rows into the JVM. The key range is split into
+ * {@code gridSize} ranges and every range is summarised on both sides by its row count and the sum of a 60 bit
+ * hash of each row, which does not depend on row order. Ranges that differ are split into {@code fanout}
+ * sub-ranges and compared again, level by level, until they hold at most {@code leafSize} keys; only then are
+ * the keys and row hashes of that range fetched to name the mismatching keys.
+ * <p>
+ * Rows are hashed as {@code md5(ROW(expressions)::text)}, so the expressions must render equal rows identically
+ * on both sides, e.g. {@code lower(name)} when the copy lower-cases names.
+ */
+public class RangeChecksumVerifier implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RangeChecksumVerifier.class);
+
+    private static final String ROW_HASH = "MD5(CAST(ROW(%s) AS TEXT))";
+
+    private JdbcOperations source;
+
+    private JdbcOperations target;
+
+    private AsyncTaskExecutor taskExecutor;
+
+    private String table;
+
+    private String key;
+
+    private String[] expressions;
+
+    private int gridSize = 16;
+
+    private int fanout = 16;
+
+    private long leafSize = 256;
+
+    private int maxMismatches = 1000;
+
+    public void setSource(DataSource source) {
+        setSource(new JdbcTemplate(source));
+    }
+
+    public void setSource(JdbcOperations source) {
+        this.source = source;
+    }
+
+    public void setTarget(DataSource target) {
+        setTarget(new JdbcTemplate(target));
+    }
+
+    public void setTarget(JdbcOperations target) {
+        this.target = target;
+    }
+
+    public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public void setExpressions(String... expressions) {
+        this.expressions = expressions;
+    }
+
+    public void setGridSize(int gridSize) {
+        this.gridSize = gridSize;
+    }
+
+    public void setFanout(int fanout) {
+        this.fanout = fanout;
+    }
+
+    public void setLeafSize(long leafSize) {
+        this.leafSize = leafSize;
+    }
+
+    public void setMaxMismatches(int maxMismatches) {
+        this.maxMismatches = maxMismatches;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.notNull(source, "A source DataSource is required");
+        Assert.notNull(target, "A target DataSource is required");
+        Assert.notNull(taskExecutor, "A task executor is required");
+        Assert.hasText(table, "A table is required");
+        Assert.hasText(key, "A key column is required");
+        Assert.notEmpty(expressions, "Expressions to compare are required");
+        Assert.isTrue(gridSize > 0, "Grid size must be positive");
+        Assert.isTrue(fanout > 1, "Fanout must be at least 2");
+        Assert.isTrue(leafSize > 0, "Leaf size must be positive");
+    }
+
+    /**
+     * Returns the mismatching keys, at most {@code maxMismatches} of them.
+     */
+    public List<Mismatch> verify() throws Exception {
+        Long[] sourceBounds = bounds(source);
+        Long[] targetBounds = bounds(target);
+        Long min = min(sourceBounds[0], targetBounds[0]);
+        Long max = max(sourceBounds[1], targetBounds[1]);
+        List<Mismatch> mismatches = new ArrayList<>();
+        if (min == null) {
+            return mismatches;
+        }
+
+        List<Range> ranges = new Range(min, max).split(gridSize);
+        for (int level = 0; !ranges.isEmpty() && mismatches.size() < maxMismatches; level++) {
+            List<Range> differing = differing(ranges);
+            log.debug("{}: {} of {} ranges differ at level {}", table, differing.size(), ranges.size(), level);
+            ranges = new ArrayList<>();
+            for (Range range : differing) {
+                if (range.holdsAtMost(leafSize)) {
+                    mismatches.addAll(diff(range));
+                } else {
+                    ranges.addAll(range.split(fanout));
+                }
+            }
+        }
+        return mismatches.size() > maxMismatches ? new ArrayList<>(mismatches.subList(0, maxMismatches)) : mismatches;
+    }
+
+    private Long[] bounds(JdbcOperations jdbc) {
+        return jdbc.queryForObject("SELECT MIN(" + key + "), MAX(" + key + ") FROM " + table,
+                (resultSet, i) -> new Long[]{resultSet.getObject(1, Long.class), resultSet.getObject(2, Long.class)});
+    }
+
+    private List<Range> differing(List<Range> ranges) throws Exception {
+        String sql = "SELECT COUNT(*), COALESCE(SUM(CAST(CAST(CAST('x' || LEFT(" + String.format(ROW_HASH, String.join(", ", expressions))
+                + ", 15) AS BIT(60)) AS BIGINT) AS NUMERIC)), 0) FROM " + table + " WHERE " + key + " BETWEEN ? AND ?";
+        List<Future<Checksum>> sourceChecksums = new ArrayList<>();
+        List<Future<Checksum>> targetChecksums = new ArrayList<>();
+        for (Range range : ranges) {
+            sourceChecksums.add(taskExecutor.submit(() -> checksum(source, sql, range)));
+            targetChecksums.add(taskExecutor.submit(() -> checksum(target, sql, range)));
+        }
+        List<Range> differing = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            if (!get(sourceChecksums.get(i)).equals(get(targetChecksums.get(i)))) {
+                differing.add(ranges.get(i));
+            }
+        }
+        return differing;
+    }
+
+    private static Checksum checksum(JdbcOperations jdbc, String sql, Range range) {
+        return jdbc.queryForObject(sql, (resultSet, i) -> new Checksum(resultSet.getLong(1), resultSet.getBigDecimal(2)), range.min, range.max);
+    }
+
+    private List<Mismatch> diff(Range range) throws Exception {
+        String sql = "SELECT " + key + ", " + String.format(ROW_HASH, String.join(", ", expressions)) + " FROM " + table
+                + " WHERE " + key + " BETWEEN ? AND ? ORDER BY " + key;
+        Future<Map<Long, String>> sourceRows = taskExecutor.submit(() -> hashes(source, sql, range));
+        Map<Long, String> targetRows = hashes(target, sql, range);
+
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (Map.Entry<Long, String> row : get(sourceRows).entrySet()) {
+            String targetHash = targetRows.remove(row.getKey());
+            if (targetHash == null) {
+                mismatches.add(new Mismatch(row.getKey(), Mismatch.Kind.MISSING));
+            } else if (!targetHash.equals(row.getValue())) {
+                mismatches.add(new Mismatch(row.getKey(), Mismatch.Kind.DIFFERENT));
+            }
+        }
+        for (Long extra : targetRows.keySet()) {
+            mismatches.add(new Mismatch(extra, Mismatch.Kind.EXTRA));
+        }
+        return mismatches;
+    }
+
+    private static Map<Long, String> hashes(JdbcOperations jdbc, String sql, Range range) {
+        Map<Long, String> hashes = new LinkedHashMap<>();
+        jdbc.query(sql, resultSet -> {
+            hashes.put(resultSet.getLong(1), resultSet.getString(2));
+        }, range.min, range.max);
+        return hashes;
+    }
+
+    private static <T> T get(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private static Long min(Long a, Long b) {
+        return a == null ? b : b == null ? a : Math.min(a, b);
+    }
+
+    private static Long max(Long a, Long b) {
+        return a == null ? b : b == null ? a : Math.max(a, b);
+    }
+
+    public static class Mismatch {
+
+        public enum Kind {
+            MISSING, EXTRA, DIFFERENT
+        }
+
+        private final long key;
+        private final Kind kind;
+
+        public Mismatch(long key, Kind kind) {
+            this.key = key;
+            this.kind = kind;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        @Override
+        public String toString() {
+            return key + " " + kind.name().toLowerCase();
+        }
+    }
+
+    static class Range {
+
+        private final long min;
+        private final long max;
+
+        Range(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        boolean holdsAtMost(long keys) {
+            return Long.compareUnsigned(max - min, keys) < 0;
+        }
+
+        List<Range> split(int parts) {
+            // unsigned, so that even a range spanning all longs does not overflow
+            long targetSize = Long.divideUnsigned(max - min, parts) + 1;
+            List<Range> ranges = new ArrayList<>(parts);
+            long start = min;
+            while (true) {
+                long end = Long.compareUnsigned(max - start, targetSize) < 0 ? max : start + targetSize - 1;
+                ranges.add(new Range(start, end));
+                if (end == max) {
+                    return ranges;
+                }
+                start = end + 1;
+            }
+        }
+    }
+
+    private static class Checksum {
+
+        private final long count;
+        private final BigDecimal sum;
+
+        private Checksum(long count, BigDecimal sum) {
+            this.count = count;
+            this.sum = sum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Checksum)) {
+                return false;
+            }
+            Checksum other = (Checksum) o;
+            return count == other.count && sum.compareTo(other.sum) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, sum.stripTrailingZeros());
+        }
+    }
+}
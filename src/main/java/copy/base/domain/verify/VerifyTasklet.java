@@ -0,0 +1,60 @@
+package copy.base.domain.verify;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a {@link RangeChecksumVerifier} and fails the step when source and target differ, unless
+ * {@code failOnMismatch} is off. The number of mismatches found is kept in the step execution context.
+ */
+public class VerifyTasklet implements Tasklet {
+
+    public static final String MISMATCHES = "verify.mismatches";
+
+    private static final Logger log = LoggerFactory.getLogger(VerifyTasklet.class);
+
+    private static final int LOGGED_KEYS = 20;
+
+    private final RangeChecksumVerifier verifier;
+
+    private final String table;
+
+    private boolean failOnMismatch = true;
+
+    public VerifyTasklet(RangeChecksumVerifier verifier, String table) {
+        this.verifier = verifier;
+        this.table = table;
+    }
+
+    public void setFailOnMismatch(boolean failOnMismatch) {
+        this.failOnMismatch = failOnMismatch;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        List<RangeChecksumVerifier.Mismatch> mismatches = verifier.verify();
+        chunkContext.getStepContext().getStepExecution().getExecutionContext().putInt(MISMATCHES, mismatches.size());
+        if (mismatches.isEmpty()) {
+            log.info("{}: source and target match", table);
+            return RepeatStatus.FINISHED;
+        }
+
+        String keys = mismatches.stream()
+                .limit(LOGGED_KEYS)
+                .map(RangeChecksumVerifier.Mismatch::toString)
+                .collect(Collectors.joining(", "));
+        String message = table + ": " + mismatches.size() + " mismatching keys, " + keys + (mismatches.size() > LOGGED_KEYS ? ", ..." : "");
+        if (failOnMismatch) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+        return RepeatStatus.FINISHED;
+    }
+}
@@ -0,0 +1,81 @@
+package copy.base.util;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.List;
+
+/**
+ * Feeds the size and latency of every committed chunk to an {@link AdaptiveController} and records the chunk
+ * size and concurrency it settles on in the step execution context. Register it on a chunk step as step, chunk
+ * and write listener.
+ */
+public class AdaptiveChunkListener implements StepExecutionListener, ChunkListener, ItemWriteListener<Object> {
+
+    private final AdaptiveController controller;
+
+    private final ThreadLocal<long[]> chunk = ThreadLocal.withInitial(() -> new long[2]);
+
+    AdaptiveChunkListener(AdaptiveController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        controller.started();
+        record(stepExecution.getExecutionContext());
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        record(stepExecution.getExecutionContext());
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        long[] startAndItems = chunk.get();
+        startAndItems[0] = System.nanoTime();
+        startAndItems[1] = 0;
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        long[] startAndItems = chunk.get();
+        // the last chunk of a step only finds the end of the input
+        if (startAndItems[1] > 0) {
+            controller.chunkCompleted(startAndItems[1], System.nanoTime() - startAndItems[0]);
+            record(context.getStepContext().getStepExecution().getExecutionContext());
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        chunk.get()[1] = 0;
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        chunk.get()[1] += items.size();
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+    }
+
+    private void record(ExecutionContext context) {
+        context.putInt(AdaptiveController.CHUNK_SIZE_KEY, controller.getChunkSize());
+        if (controller.getConcurrency() > 0) {
+            context.putInt(AdaptiveController.CONCURRENCY_KEY, controller.getConcurrency());
+        }
+    }
+}
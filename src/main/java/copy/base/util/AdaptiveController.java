@@ -0,0 +1,237 @@
+package copy.base.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.repeat.CompletionPolicy;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+
+/**
+ * Feedback controller for the chunk size of a step and the number of its partitions running at once. Every
+ * {@code window} committed chunks it compares the mean chunk latency, commit included, with the target latency
+ * and the throughput with the previous window:
+ * <ul>
+ * <li>above the target latency it backs off: halves the chunk size, or drops a worker once at the minimum</li>
+ * <li>when its previous probe lowered throughput the probe is undone and the controller holds for a while</li>
+ * <li>otherwise it probes, alternately doubling the chunk size and adding a worker, while latency stays below
+ * half the target</li>
+ * </ul>
+ * The worker count is the core size of the partition executor, so it only applies to partitioned steps; a
+ * lowered count takes effect as running partitions finish.
+ */
+public class AdaptiveController implements InitializingBean {
+
+    public static final String CHUNK_SIZE_KEY = "adaptive.chunkSize";
+
+    public static final String CONCURRENCY_KEY = "adaptive.concurrency";
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveController.class);
+
+    private static final double TOLERANCE = 0.05;
+
+    private static final int HOLD_WINDOWS = 3;
+
+    enum Action {
+        NONE, GROW_CHUNK, SHRINK_CHUNK, ADD_WORKER, REMOVE_WORKER
+    }
+
+    private String name;
+
+    private int minChunkSize = 1;
+
+    private int maxChunkSize = Integer.MAX_VALUE;
+
+    private int minConcurrency = 1;
+
+    private int maxConcurrency = 1;
+
+    private long targetLatencyNanos = Duration.ofSeconds(1).toNanos();
+
+    private int window = 8;
+
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    private volatile int chunkSize;
+
+    private volatile int concurrency;
+
+    private int windowChunks;
+    private long windowItems;
+    private long windowLatencyNanos;
+    private long windowStart = System.nanoTime();
+    private double previousThroughput;
+    private Action lastProbe = Action.NONE;
+    private int hold;
+    private boolean probeWorkers;
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setMinChunkSize(int minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
+    public void setMaxChunkSize(int maxChunkSize) {
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    public void setMinConcurrency(int minConcurrency) {
+        this.minConcurrency = minConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public void setTargetLatency(Duration targetLatency) {
+        this.targetLatencyNanos = targetLatency.toNanos();
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+
+    /**
+     * Partition executor whose core pool size is adjusted, none for steps that are not partitioned.
+     */
+    public void setTaskExecutor(ThreadPoolTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.hasText(name, "A name is required");
+        Assert.isTrue(minChunkSize > 0 && minChunkSize <= maxChunkSize, "Chunk size bounds must be positive and ordered");
+        Assert.isTrue(minConcurrency > 0 && minConcurrency <= maxConcurrency, "Concurrency bounds must be positive and ordered");
+        Assert.isTrue(targetLatencyNanos > 0, "Target latency must be positive");
+        Assert.isTrue(window > 0, "Window must be positive");
+        chunkSize = clamp(chunkSize, minChunkSize, maxChunkSize);
+        if (taskExecutor != null) {
+            concurrency = clamp(taskExecutor.getCorePoolSize(), minConcurrency, maxConcurrency);
+            if (taskExecutor.getMaxPoolSize() < maxConcurrency) {
+                taskExecutor.setMaxPoolSize(maxConcurrency);
+            }
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Current number of workers, 0 when there is no partition executor to adjust.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Completes a chunk once it holds the current chunk size.
+     */
+    public CompletionPolicy completionPolicy() {
+        return new CompletionPolicySupport() {
+            @Override
+            public boolean isComplete(RepeatContext context) {
+                return context.getStartedCount() >= chunkSize;
+            }
+        };
+    }
+
+    public AdaptiveChunkListener listener() {
+        return new AdaptiveChunkListener(this);
+    }
+
+    void started() {
+        if (taskExecutor != null) {
+            // the executor may be shared with a step tuned by another controller
+            taskExecutor.setCorePoolSize(concurrency);
+        }
+    }
+
+    public synchronized void chunkCompleted(long items, long latencyNanos) {
+        windowChunks++;
+        windowItems += items;
+        windowLatencyNanos += latencyNanos;
+        if (windowChunks < window) {
+            return;
+        }
+        long now = System.nanoTime();
+        adjust(windowItems / Math.max(1e-9, (now - windowStart) / 1e9), windowLatencyNanos / windowChunks);
+        windowChunks = 0;
+        windowItems = 0;
+        windowLatencyNanos = 0;
+        windowStart = now;
+    }
+
+    synchronized Action adjust(double throughput, long latencyNanos) {
+        Action action = Action.NONE;
+        Action probe = Action.NONE;
+        if (latencyNanos > targetLatencyNanos) {
+            if (chunkSize > minChunkSize) {
+                action = Action.SHRINK_CHUNK;
+            } else if (taskExecutor != null && concurrency > minConcurrency) {
+                action = Action.REMOVE_WORKER;
+            }
+        } else if (lastProbe != Action.NONE && throughput < previousThroughput * (1 - TOLERANCE)) {
+            action = lastProbe == Action.GROW_CHUNK ? Action.SHRINK_CHUNK : Action.REMOVE_WORKER;
+            hold = HOLD_WINDOWS;
+        } else if (hold > 0) {
+            hold--;
+        } else if (latencyNanos < targetLatencyNanos / 2) {
+            action = probe();
+            probe = action;
+        }
+
+        apply(action);
+        lastProbe = probe;
+        previousThroughput = throughput;
+        log.debug("{}: {} rows/s, chunk latency {}ms, {} -> chunk size {}, concurrency {}", name, Math.round(throughput),
+                latencyNanos / 1_000_000, action, chunkSize, concurrency);
+        return action;
+    }
+
+    private Action probe() {
+        boolean canGrow = chunkSize < maxChunkSize;
+        boolean canAdd = taskExecutor != null && concurrency < maxConcurrency;
+        probeWorkers = !probeWorkers;
+        if (canAdd && (probeWorkers || !canGrow)) {
+            return Action.ADD_WORKER;
+        }
+        return canGrow ? Action.GROW_CHUNK : Action.NONE;
+    }
+
+    private void apply(Action action) {
+        switch (action) {
+            case GROW_CHUNK:
+                chunkSize = clamp(chunkSize * 2, minChunkSize, maxChunkSize);
+                break;
+            case SHRINK_CHUNK:
+                chunkSize = clamp(chunkSize / 2, minChunkSize, maxChunkSize);
+                break;
+            case ADD_WORKER:
+                concurrency = clamp(concurrency + 1, minConcurrency, maxConcurrency);
+                taskExecutor.setCorePoolSize(concurrency);
+                break;
+            case REMOVE_WORKER:
+                concurrency = clamp(concurrency - 1, minConcurrency, maxConcurrency);
+                taskExecutor.setCorePoolSize(concurrency);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static int clamp(long value, int min, int max) {
+        return (int) Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,56 @@
+package copy.base.util;
+
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.util.Assert;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Completes a chunk once the items read into it add up to {@code maxBytes} or number {@code maxCount}, whichever
+ * comes first, so the memory held by a chunk is bounded however wide its items are. Must also be registered as
+ * {@link ItemReadListener} of its step, which has to be single-threaded.
+ */
+public class ByteBudgetCompletionPolicy<T> extends CompletionPolicySupport implements ItemReadListener<T> {
+
+    private final long maxBytes;
+
+    private final int maxCount;
+
+    private final ToLongFunction<? super T> size;
+
+    private long bytes;
+
+    public ByteBudgetCompletionPolicy(long maxBytes, int maxCount, ToLongFunction<? super T> size) {
+        Assert.isTrue(maxBytes > 0, "The byte budget must be positive");
+        Assert.isTrue(maxCount > 0, "The maximum count must be positive");
+        this.maxBytes = maxBytes;
+        this.maxCount = maxCount;
+        this.size = size;
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        bytes = 0;
+        return super.start(parent);
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return bytes >= maxBytes || context.getStartedCount() >= maxCount;
+    }
+
+    @Override
+    public void beforeRead() {
+    }
+
+    @Override
+    public void afterRead(T item) {
+        bytes += size.applyAsLong(item);
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+    }
+}
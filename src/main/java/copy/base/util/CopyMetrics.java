@@ -0,0 +1,290 @@
+package copy.base.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects throughput and latency of the running steps and partitions, fed by {@link StepMetricsListener}s.
+ * Meters are published to the given {@link MeterRegistry}, tagged with job, step and partition:
+ * <ul>
+ * <li>{@code copy.items.read}, {@code copy.items.written} - counters, their rate is the throughput</li>
+ * <li>{@code copy.chunk} - duration of a chunk including its commit</li>
+ * <li>{@code copy.chunk.read}, {@code copy.chunk.process}, {@code copy.chunk.write}, {@code copy.chunk.commit} -
+ * time a chunk spent waiting on the reader, the processor, the writer and the commit</li>
+ * <li>{@code copy.partition.progress}, {@code copy.partition.eta} - fraction of the key range of a partition
+ * written so far and the seconds left at the current rate</li>
+ * </ul>
+ * A summary of every step of a running job, across its partitions, is logged each {@code logInterval} and whenever
+ * no partition of the step is left running.
+ */
+public class CopyMetrics implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CopyMetrics.class);
+
+    private final MeterRegistry registry;
+
+    private final Duration logInterval;
+
+    private final Map<Long, StepMetrics> steps = new ConcurrentHashMap<>();
+
+    private final Map<String, StepTotals> totals = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public CopyMetrics(MeterRegistry registry, Duration logInterval) {
+        this.registry = registry;
+        this.logInterval = logInterval;
+    }
+
+    public StepMetricsListener listener() {
+        return new StepMetricsListener(this, null);
+    }
+
+    /**
+     * Listener that also tracks progress through the {@code minValue}..{@code maxValue} key range of a
+     * partition, with the key of the last written item.
+     */
+    public StepMetricsListener listener(ToLongFunction<Object> key) {
+        return new StepMetricsListener(this, key);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (logInterval.isZero() || logInterval.isNegative()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "copy-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::logSummary, logInterval.toMillis(), logInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    StepMetrics started(StepExecution stepExecution, Long minKey, Long maxKey) {
+        return steps.computeIfAbsent(stepExecution.getId(), id -> {
+            StepMetrics metrics = new StepMetrics(stepExecution, minKey, maxKey);
+            metrics.totals.running.incrementAndGet();
+            return metrics;
+        });
+    }
+
+    StepMetrics get(StepExecution stepExecution) {
+        return steps.get(stepExecution.getId());
+    }
+
+    void finished(StepExecution stepExecution) {
+        StepMetrics metrics = steps.remove(stepExecution.getId());
+        if (metrics != null) {
+            metrics.close(stepExecution);
+            metrics.totals.finished.incrementAndGet();
+            if (metrics.totals.running.decrementAndGet() == 0) {
+                totals.remove(metrics.totals.key, metrics.totals);
+                log(metrics.totals, metrics.totals.averageRate(), "");
+            }
+        }
+    }
+
+    void logSummary() {
+        Map<StepTotals, List<StepMetrics>> running = new HashMap<>();
+        for (StepMetrics metrics : steps.values()) {
+            running.computeIfAbsent(metrics.totals, step -> new ArrayList<>()).add(metrics);
+        }
+        for (StepTotals step : totals.values()) {
+            if (step.running.get() == 0) {
+                // summarised when its last partition finished
+                continue;
+            }
+            List<StepMetrics> partitions = running.getOrDefault(step, Collections.emptyList());
+            partitions.sort(Comparator.comparing((StepMetrics metrics) -> metrics.partition.length()).thenComparing(metrics -> metrics.partition));
+            double eta = 0;
+            StringBuilder progress = new StringBuilder();
+            for (StepMetrics metrics : partitions) {
+                eta = Math.max(eta, metrics.eta());
+                if (metrics.hasProgress()) {
+                    progress.append(String.format(" %s=%.0f%%", metrics.partition, metrics.progress() * 100));
+                }
+            }
+            log(step, step.sampleRate(), (progress.length() == 0 ? "" : ", progress" + progress)
+                    + (eta > 0 ? String.format(", ETA %ds", Math.round(eta)) : ""));
+        }
+    }
+
+    private void log(StepTotals step, double rate, String progress) {
+        long busy = Math.max(1, step.readNanos.sum() + step.processNanos.sum() + step.writeNanos.sum() + step.commitNanos.sum());
+        log.info("{}: {} rows written, {} rows/s, time in read {}% process {}% write {}% commit {}%{}{}",
+                step.name, step.written.sum(), Math.round(rate),
+                100 * step.readNanos.sum() / busy, 100 * step.processNanos.sum() / busy,
+                100 * step.writeNanos.sum() / busy, 100 * step.commitNanos.sum() / busy,
+                step.partitioned ? ", " + step.finished.get() + " partitions done" : "", progress);
+    }
+
+    private static class StepTotals {
+
+        private final String key;
+        private final String name;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger finished = new AtomicInteger();
+        private volatile boolean partitioned;
+        private final LongAdder written = new LongAdder();
+        private final LongAdder readNanos = new LongAdder();
+        private final LongAdder processNanos = new LongAdder();
+        private final LongAdder writeNanos = new LongAdder();
+        private final LongAdder commitNanos = new LongAdder();
+        private final long startNanos = System.nanoTime();
+        private long sampleNanos = startNanos;
+        private long sampleWritten;
+
+        private StepTotals(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+
+        private synchronized double sampleRate() {
+            long now = System.nanoTime();
+            long total = written.sum();
+            double rate = (total - sampleWritten) / Math.max(1e-9, (now - sampleNanos) / 1e9);
+            sampleNanos = now;
+            sampleWritten = total;
+            return rate;
+        }
+
+        private double averageRate() {
+            return written.sum() / Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        }
+    }
+
+    class StepMetrics {
+
+        private final String step;
+        private final String partition;
+        private final Long minKey;
+        private final Long maxKey;
+        private final StepTotals totals;
+        private final long startNanos = System.nanoTime();
+        private final LongAdder written = new LongAdder();
+        private final Counter readCounter;
+        private final Counter writtenCounter;
+        private final Timer chunkTimer;
+        private final Timer readTimer;
+        private final Timer processTimer;
+        private final Timer writeTimer;
+        private final Timer commitTimer;
+        private final List<Meter> gauges = new ArrayList<>();
+        private volatile long lastKey = Long.MIN_VALUE;
+
+        private StepMetrics(StepExecution stepExecution, Long minKey, Long maxKey) {
+            String name = stepExecution.getStepName();
+            int colon = name.indexOf(':');
+            this.step = colon < 0 ? name : name.substring(0, colon);
+            this.partition = colon < 0 ? "" : name.substring(colon + 1);
+            this.minKey = minKey;
+            this.maxKey = maxKey;
+            this.totals = CopyMetrics.this.totals.computeIfAbsent(stepExecution.getJobExecutionId() + ":" + step, key -> new StepTotals(key, step));
+            this.totals.partitioned = !partition.isEmpty();
+
+            Tags tags = Tags.of("job", stepExecution.getJobExecution().getJobInstance().getJobName(),
+                    "step", step, "partition", partition);
+            readCounter = registry.counter("copy.items.read", tags);
+            writtenCounter = registry.counter("copy.items.written", tags);
+            chunkTimer = timer("copy.chunk", tags);
+            readTimer = timer("copy.chunk.read", tags);
+            processTimer = timer("copy.chunk.process", tags);
+            writeTimer = timer("copy.chunk.write", tags);
+            commitTimer = timer("copy.chunk.commit", tags);
+            if (hasProgress()) {
+                gauges.add(Gauge.builder("copy.partition.progress", this, StepMetrics::progress).tags(tags).register(registry));
+                gauges.add(Gauge.builder("copy.partition.eta", this, StepMetrics::eta).tags(tags).baseUnit("seconds").register(registry));
+            }
+        }
+
+        private Timer timer(String name, Tags tags) {
+            return Timer.builder(name).tags(tags).publishPercentileHistogram().register(registry);
+        }
+
+        void chunk(long items, long itemsWritten, long chunk, long reading, long processing, long writing, long committing, long key) {
+            written.add(itemsWritten);
+            totals.written.add(itemsWritten);
+            totals.readNanos.add(reading);
+            totals.processNanos.add(processing);
+            totals.writeNanos.add(writing);
+            totals.commitNanos.add(committing);
+            readCounter.increment(items);
+            writtenCounter.increment(itemsWritten);
+            chunkTimer.record(chunk, TimeUnit.NANOSECONDS);
+            readTimer.record(reading, TimeUnit.NANOSECONDS);
+            processTimer.record(processing, TimeUnit.NANOSECONDS);
+            writeTimer.record(writing, TimeUnit.NANOSECONDS);
+            commitTimer.record(committing, TimeUnit.NANOSECONDS);
+            if (key > lastKey) {
+                lastKey = key;
+            }
+        }
+
+        boolean hasProgress() {
+            return minKey != null && maxKey != null;
+        }
+
+        double progress() {
+            long key = lastKey;
+            if (!hasProgress() || key == Long.MIN_VALUE) {
+                return 0;
+            }
+            return Math.min(1, (double) (key - minKey + 1) / (maxKey - minKey + 1));
+        }
+
+        double eta() {
+            double progress = progress();
+            if (progress <= 0) {
+                return 0;
+            }
+            double elapsed = (System.nanoTime() - startNanos) / 1e9;
+            return elapsed * (1 - progress) / progress;
+        }
+
+        private void close(StepExecution stepExecution) {
+            if (written.sum() == 0 && stepExecution.getWriteCount() > 0) {
+                // tasklet steps only report their counts at the end
+                written.add(stepExecution.getWriteCount());
+                totals.written.add(stepExecution.getWriteCount());
+                readCounter.increment(stepExecution.getReadCount());
+                writtenCounter.increment(stepExecution.getWriteCount());
+            }
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            log.debug("{}{} {}: {} rows in {}s", step, partition.isEmpty() ? "" : ":" + partition, stepExecution.getStatus(),
+                    written.sum(), String.format("%.1f", seconds));
+            gauges.forEach(registry::remove);
+        }
+    }
+}
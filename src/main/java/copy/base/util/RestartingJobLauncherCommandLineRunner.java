@@ -0,0 +1,101 @@
+package copy.base.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.JobParametersNotFoundException;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.boot.autoconfigure.batch.JobLauncherCommandLineRunner;
+
+import java.util.Date;
+
+/**
+ * Launches the jobs like Spring Boot does, creating a new instance through the incrementer, or with
+ * {@code restart} set restarts the last execution of each job instead, with its parameters. Completed partitions
+ * of a restarted execution are skipped and the others resume from their last commit. Jobs that never ran or whose
+ * last execution completed are skipped, so several jobs may be enabled at once.
+ * <p>
+ * An execution still marked as running is taken for one whose process died and is marked failed first, so only
+ * restart when no other process runs the job.
+ */
+public class RestartingJobLauncherCommandLineRunner extends JobLauncherCommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RestartingJobLauncherCommandLineRunner.class);
+
+    private final JobExplorer jobExplorer;
+
+    private final JobRepository jobRepository;
+
+    private boolean restart;
+
+    public RestartingJobLauncherCommandLineRunner(JobLauncher jobLauncher, JobExplorer jobExplorer, JobRepository jobRepository) {
+        super(jobLauncher, jobExplorer, jobRepository);
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+    }
+
+    public void setRestart(boolean restart) {
+        this.restart = restart;
+    }
+
+    @Override
+    protected void execute(Job job, JobParameters jobParameters) throws JobExecutionAlreadyRunningException,
+            JobRestartException, JobInstanceAlreadyCompleteException, JobParametersInvalidException, JobParametersNotFoundException {
+        if (!restart) {
+            super.execute(job, jobParameters);
+            return;
+        }
+        JobInstance instance = jobExplorer.getLastJobInstance(job.getName());
+        JobExecution last = instance == null ? null : jobExplorer.getLastJobExecution(instance);
+        if (last != null) {
+            // with its step executions
+            last = jobExplorer.getJobExecution(last.getId());
+        }
+        if (last == null) {
+            log.info("No execution of {} to restart, skipping it", job.getName());
+            return;
+        }
+        if (last.isRunning()) {
+            log.warn("Execution {} of {} is still {}, marking it failed to restart it", last.getId(), job.getName(), last.getStatus());
+            abandon(last);
+        }
+        if (last.getStatus() == BatchStatus.COMPLETED) {
+            log.info("Last execution {} of {} completed, skipping it", last.getId(), job.getName());
+            return;
+        }
+        if (last.getStatus() != BatchStatus.FAILED && last.getStatus() != BatchStatus.STOPPED) {
+            throw new JobRestartException("Last execution " + last.getId() + " of " + job.getName() + " is " + last.getStatus()
+                    + ", only failed or stopped executions are restarted");
+        }
+        log.info("Restarting execution {} of {} with {}", last.getId(), job.getName(), last.getJobParameters());
+        super.execute(job, last.getJobParameters());
+    }
+
+    private void abandon(JobExecution jobExecution) {
+        Date now = new Date();
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            if (stepExecution.getStatus().isRunning()) {
+                stepExecution.setStatus(BatchStatus.FAILED);
+                stepExecution.setExitStatus(ExitStatus.FAILED.addExitDescription("Process running the step died"));
+                stepExecution.setEndTime(now);
+                jobRepository.update(stepExecution);
+            }
+        }
+        jobExecution.setStatus(BatchStatus.FAILED);
+        jobExecution.setExitStatus(ExitStatus.FAILED.addExitDescription("Process running the job died"));
+        jobExecution.setEndTime(now);
+        jobRepository.update(jobExecution);
+    }
+}
@@ -0,0 +1,176 @@
+package copy.base.util;
+
+import copy.base.domain.datasource.ColumnRangePartitioner;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Times every phase of a chunk on the thread running it and hands the totals to {@link CopyMetrics} once the
+ * chunk is committed. Register it on a chunk step as step, chunk, read, process and write listener; on a
+ * tasklet step only the step callbacks are used.
+ */
+public class StepMetricsListener implements StepExecutionListener, ChunkListener, ItemReadListener<Object>,
+        ItemProcessListener<Object, Object>, ItemWriteListener<Object> {
+
+    private final CopyMetrics metrics;
+
+    private final ToLongFunction<Object> key;
+
+    private final ThreadLocal<ChunkTiming> timing = ThreadLocal.withInitial(ChunkTiming::new);
+
+    StepMetricsListener(CopyMetrics metrics, ToLongFunction<Object> key) {
+        this.metrics = metrics;
+        this.key = key;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        Long minKey = key != null && context.containsKey(ColumnRangePartitioner.MIN_VALUE) ? context.getLong(ColumnRangePartitioner.MIN_VALUE) : null;
+        Long maxKey = key != null && context.containsKey(ColumnRangePartitioner.MAX_VALUE) ? context.getLong(ColumnRangePartitioner.MAX_VALUE) : null;
+        metrics.started(stepExecution, minKey, maxKey);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        metrics.finished(stepExecution);
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        ChunkTiming chunk = timing.get();
+        chunk.reset(metrics.get(context.getStepContext().getStepExecution()));
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkTiming chunk = timing.get();
+        if (chunk.step != null) {
+            long now = System.nanoTime();
+            chunk.step.chunk(chunk.read, chunk.written, now - chunk.start, chunk.readNanos, chunk.processNanos,
+                    chunk.writeNanos, chunk.writeEnd == 0 ? 0 : now - chunk.writeEnd, chunk.lastKey);
+        }
+        chunk.reset(null);
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        timing.get().reset(null);
+    }
+
+    @Override
+    public void beforeRead() {
+        timing.get().readStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        ChunkTiming chunk = timing.get();
+        chunk.endRead();
+        chunk.read++;
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+        timing.get().endRead();
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+        timing.get().processStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        timing.get().endProcess();
+    }
+
+    @Override
+    public void onProcessError(Object item, Exception e) {
+        timing.get().endProcess();
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        ChunkTiming chunk = timing.get();
+        // the read returning null at the end of the input has no afterRead
+        chunk.endRead();
+        chunk.writeStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        ChunkTiming chunk = timing.get();
+        chunk.endWrite();
+        chunk.written += items.size();
+        if (key != null && !items.isEmpty()) {
+            chunk.lastKey = Math.max(chunk.lastKey, key.applyAsLong(items.get(items.size() - 1)));
+        }
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+        timing.get().endWrite();
+    }
+
+    private static class ChunkTiming {
+
+        private CopyMetrics.StepMetrics step;
+        private long start;
+        private long read;
+        private long written;
+        private long readStart;
+        private long readNanos;
+        private long processStart;
+        private long processNanos;
+        private long writeStart;
+        private long writeNanos;
+        private long writeEnd;
+        private long lastKey;
+
+        private void reset(CopyMetrics.StepMetrics step) {
+            this.step = step;
+            start = System.nanoTime();
+            read = 0;
+            written = 0;
+            readStart = 0;
+            readNanos = 0;
+            processStart = 0;
+            processNanos = 0;
+            writeStart = 0;
+            writeNanos = 0;
+            writeEnd = 0;
+            lastKey = Long.MIN_VALUE;
+        }
+
+        private void endRead() {
+            if (readStart != 0) {
+                readNanos += System.nanoTime() - readStart;
+                readStart = 0;
+            }
+        }
+
+        private void endProcess() {
+            if (processStart != 0) {
+                processNanos += System.nanoTime() - processStart;
+                processStart = 0;
+            }
+        }
+
+        private void endWrite() {
+            writeEnd = System.nanoTime();
+            writeNanos += writeEnd - writeStart;
+        }
+    }
+}
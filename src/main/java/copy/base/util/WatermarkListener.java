@@ -0,0 +1,125 @@
+package copy.base.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps a high watermark per table in the job execution context. Before the copy step the watermark of the last
+ * completed job execution becomes the lower bound and the current maximum of the watermark column the upper bound;
+ * once the step completes the upper bound is stored as the new watermark. The bounds are saved with the job execution
+ * context before the step runs, so that a restart after a crash partitions the same range again.
+ */
+public class WatermarkListener extends StepExecutionListenerSupport {
+
+    /**
+     * Suffixes of the job execution context keys after the table name, constants for use in {@code @Value}
+     * expressions binding the bounds.
+     */
+    public static final String WATERMARK_SUFFIX = ".watermark";
+    public static final String LOWER_SUFFIX = ".watermark.lower";
+    public static final String UPPER_SUFFIX = ".watermark.upper";
+
+    private static final Logger log = LoggerFactory.getLogger(WatermarkListener.class);
+
+    private static final int INSTANCES_TO_SEARCH = 100;
+
+    private final JobExplorer jobExplorer;
+
+    private final JobRepository jobRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String table;
+
+    private final String column;
+
+    public WatermarkListener(JobExplorer jobExplorer, JobRepository jobRepository, DataSource dataSource, String table, String column) {
+        this(jobExplorer, jobRepository, new JdbcTemplate(dataSource), table, column);
+    }
+
+    public WatermarkListener(JobExplorer jobExplorer, JobRepository jobRepository, JdbcTemplate jdbcTemplate, String table, String column) {
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+        this.column = column;
+    }
+
+    public static String watermarkKey(String table) {
+        return table + WATERMARK_SUFFIX;
+    }
+
+    public static String lowerKey(String table) {
+        return table + LOWER_SUFFIX;
+    }
+
+    public static String upperKey(String table) {
+        return table + UPPER_SUFFIX;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        JobExecution jobExecution = stepExecution.getJobExecution();
+        if (jobExecution.getExecutionContext().containsKey(upperKey(table))) {
+            // a restarted execution keeps the bounds its partitions were created with
+            return;
+        }
+        String lower = previousWatermark(jobExecution);
+        String upper = jdbcTemplate.queryForObject("SELECT CAST(MAX(" + column + ") AS VARCHAR) FROM " + table, String.class);
+        if (upper == null) {
+            upper = lower;
+        }
+
+        if (lower != null) {
+            jobExecution.getExecutionContext().putString(lowerKey(table), lower);
+        }
+        if (upper != null) {
+            jobExecution.getExecutionContext().putString(upperKey(table), upper);
+        }
+        // persisted before the partitions are created, the job context is otherwise only saved after the step
+        jobRepository.updateExecutionContext(jobExecution);
+        log.info("Copying {} rows with {} in ({}, {}]", table, column, lower == null ? "-inf" : lower, upper);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        ExecutionContext context = stepExecution.getJobExecution().getExecutionContext();
+        String upper = context.getString(upperKey(table), null);
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED && upper != null) {
+            context.putString(watermarkKey(table), upper);
+            log.info("New {} watermark: {}", table, upper);
+        }
+        return null;
+    }
+
+    private String previousWatermark(JobExecution current) {
+        String jobName = current.getJobInstance().getJobName();
+        List<JobInstance> instances = jobExplorer.getJobInstances(jobName, 0, INSTANCES_TO_SEARCH);
+        for (JobInstance instance : instances) {
+            String watermark = jobExplorer.getJobExecutions(instance).stream()
+                    .filter(execution -> execution.getStatus() == BatchStatus.COMPLETED)
+                    .filter(execution -> execution.getExecutionContext().containsKey(watermarkKey(table)))
+                    .max(Comparator.comparing(JobExecution::getId))
+                    .map(execution -> execution.getExecutionContext().getString(watermarkKey(table)))
+                    .orElse(null);
+            if (watermark != null) {
+                return watermark;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,35 @@
+package copy.base.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import copy.base.domain.datatarget.DataTargets;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataTargetConfigurationTest {
+
+    @Test
+    void bindsAndSizesTheFanOutPools() throws Exception {
+        CopyProperties properties = new CopyProperties();
+        DataSourceProperties replica = new DataSourceProperties();
+        replica.setUrl("jdbc:postgresql://localhost:5434/postgres");
+        properties.getFanOut().getTargets().put("replica", replica);
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("copy.fan-out.targets.replica.hikari.maximum-pool-size", "3")
+                .withProperty("copy.fan-out.targets.replica.hikari.minimum-idle", "1");
+
+        DataTargets targets = new DataTargetConfiguration().fanOutTargets(properties, environment);
+        HikariDataSource dataSource = (HikariDataSource) targets.getDataSources().get("replica");
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(3);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(1);
+        targets.destroy();
+
+        properties.getPool().setSizedToConcurrency(true);
+        targets = new DataTargetConfiguration().fanOutTargets(properties, environment);
+        dataSource = (HikariDataSource) targets.getDataSources().get("replica");
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(PoolSizing.targetConnections(properties));
+        targets.destroy();
+    }
+}
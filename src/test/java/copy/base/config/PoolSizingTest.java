@@ -0,0 +1,33 @@
+package copy.base.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PoolSizingTest {
+
+    @Test
+    void sizesThePoolsToThePartitionsRunningAtOnce() {
+        CopyProperties properties = new CopyProperties();
+        assertThat(PoolSizing.sourceConnections(properties)).isEqualTo(2 * BatchConfiguration.CORE_POOL_SIZE + 2);
+        assertThat(PoolSizing.targetConnections(properties)).isEqualTo(BatchConfiguration.CORE_POOL_SIZE + 2);
+
+        properties.getAdaptive().setEnabled(true);
+        properties.getAdaptive().setMaxConcurrency(8);
+        properties.getStep2().setMode(StepMode.PIPELINE);
+        properties.getStep2().setWriters(3);
+        assertThat(PoolSizing.sourceConnections(properties)).isEqualTo(18);
+        assertThat(PoolSizing.targetConnections(properties)).isEqualTo(26);
+    }
+
+    @Test
+    void coversTheJobsWithTheirOwnConcurrency() {
+        CopyProperties properties = new CopyProperties();
+        properties.getVerify().setEnabled(true);
+        properties.getVerify().setConcurrency(12);
+        properties.getBulkLoad().setEnabled(true);
+        properties.getBulkLoad().setParallelism(16);
+        assertThat(PoolSizing.sourceConnections(properties)).isEqualTo(26);
+        assertThat(PoolSizing.targetConnections(properties)).isEqualTo(18);
+    }
+}
@@ -0,0 +1,70 @@
+package copy.base.domain.codec;
+
+import copy.base.domain.datasource.Client;
+import copy.base.domain.datasource.ClientRowCodec;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RowCodecTest {
+
+    private final ClientRowCodec codec = new ClientRowCodec();
+
+    @Test
+    void resolvesOrdinalsOncePerResultSet() throws Exception {
+        ResultSet resultSet = resultSet("phone", "updated_at", "email", "lastname", "firstname", "id");
+        when(resultSet.getLong(6)).thenReturn(7L, 0L);
+        when(resultSet.wasNull()).thenReturn(true);
+        when(resultSet.getString(5)).thenReturn("Ada");
+        when(resultSet.getString(1)).thenReturn("555");
+
+        Client first = codec.mapRow(resultSet, 0);
+        Client second = codec.mapRow(resultSet, 1);
+
+        assertThat(first.getId()).isEqualTo(7L);
+        assertThat(first.getFirstName()).isEqualTo("Ada");
+        assertThat(first.getPhone()).isEqualTo("555");
+        assertThat(second.getId()).isNull();
+        verify(resultSet, times(1)).getMetaData();
+
+        ResultSet nextPage = resultSet("id", "firstName", "lastName", "email", "phone");
+        when(nextPage.getString(2)).thenReturn("Grace");
+        assertThat(codec.mapRow(nextPage, 0).getFirstName()).isEqualTo("Grace");
+    }
+
+    @Test
+    void bindsInColumnOrder() throws Exception {
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        codec.setValues(new Client(7L, "Ada", "Lovelace", null, "555"), ps);
+        codec.setValues(new Client(), ps);
+
+        verify(ps).setLong(1, 7L);
+        verify(ps).setString(2, "Ada");
+        verify(ps).setString(3, "Lovelace");
+        verify(ps, times(2)).setString(4, null);
+        verify(ps).setString(5, "555");
+        verify(ps).setNull(1, Types.BIGINT);
+        assertThat(codec.getColumnNames()).containsExactly("id", "firstName", "lastName", "email", "phone");
+    }
+
+    private static ResultSet resultSet(String... labels) throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(labels.length);
+        for (int i = 0; i < labels.length; i++) {
+            when(metaData.getColumnLabel(i + 1)).thenReturn(labels[i]);
+        }
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        return resultSet;
+    }
+}
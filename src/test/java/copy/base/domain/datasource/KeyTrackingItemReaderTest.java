@@ -0,0 +1,71 @@
+package copy.base.domain.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyTrackingItemReaderTest {
+
+    @Test
+    void savesTheKeyOfTheLastItemRead() throws Exception {
+        KeyTrackingItemReader<Long> reader = reader(10L, 20L, 30L);
+        ExecutionContext context = new ExecutionContext();
+        reader.open(context);
+
+        reader.update(context);
+        assertThat(context.containsKey("clientReader.lastKey")).isFalse();
+
+        assertThat(reader.read()).isEqualTo(10L);
+        assertThat(reader.read()).isEqualTo(20L);
+        reader.update(context);
+        assertThat(context.getLong("clientReader.lastKey")).isEqualTo(20L);
+
+        assertThat(reader.read()).isEqualTo(30L);
+        assertThat(reader.read()).isNull();
+        reader.update(context);
+        assertThat(context.getLong("clientReader.lastKey")).isEqualTo(30L);
+    }
+
+    @Test
+    void keepsTheRestoredKeyUntilAnItemIsRead() throws Exception {
+        KeyTrackingItemReader<Long> reader = reader();
+        ExecutionContext context = new ExecutionContext();
+        context.putLong("clientReader.lastKey", 42L);
+        reader.open(context);
+
+        assertThat(reader.read()).isNull();
+        ExecutionContext updated = new ExecutionContext();
+        reader.update(updated);
+        assertThat(updated.getLong("clientReader.lastKey")).isEqualTo(42L);
+    }
+
+    private static KeyTrackingItemReader<Long> reader(Long... items) throws Exception {
+        Iterator<Long> iterator = Arrays.asList(items).iterator();
+        KeyTrackingItemReader<Long> reader = new KeyTrackingItemReader<>();
+        reader.setName("clientReader");
+        reader.setDelegate(new Delegate(iterator));
+        reader.setKey(Long::longValue);
+        reader.afterPropertiesSet();
+        return reader;
+    }
+
+    private static class Delegate extends ItemStreamSupport implements ItemStreamReader<Long> {
+
+        private final Iterator<Long> iterator;
+
+        private Delegate(Iterator<Long> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public Long read() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+}
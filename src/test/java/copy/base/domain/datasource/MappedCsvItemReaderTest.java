@@ -0,0 +1,125 @@
+package copy.base.domain.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedCsvItemReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsEveryLineExactlyOnceAcrossPartitions() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            csv.append(i).append(",First").append(i).append(",Last,mail").append(i).append("@example.com,123-456\n");
+        }
+        Path file = write(csv.toString());
+
+        List<Client> clients = readAll(file, 0, 7);
+
+        assertThat(clients).hasSize(1000);
+        for (int i = 0; i < clients.size(); i++) {
+            assertThat(clients.get(i).getId()).isEqualTo(i + 1L);
+            assertThat(clients.get(i).getFirstName()).isEqualTo("First" + (i + 1));
+        }
+    }
+
+    @Test
+    void parsesQuotedFieldsCarriageReturnsAndUtf8() throws IOException {
+        Path file = write("1,\"Smith, \"\"Jr\"\"\",Żółć,a@b.pl,1\r\n\r\n2,Ann,Lee,c@d.pl,2");
+
+        List<Client> clients = readAll(file, 0, 1);
+
+        assertThat(clients).hasSize(2);
+        assertThat(clients.get(0).getFirstName()).isEqualTo("Smith, \"Jr\"");
+        assertThat(clients.get(0).getLastName()).isEqualTo("Żółć");
+        assertThat(clients.get(0).getPhone()).isEqualTo("1");
+        assertThat(clients.get(1).getPhone()).isEqualTo("2");
+    }
+
+    @Test
+    void keepsQuotedLineBreaksWithinOnePartition() throws IOException {
+        StringBuilder csv = new StringBuilder("id,firstName,lastName,email,phone\n");
+        for (int i = 1; i <= 200; i++) {
+            csv.append(i).append(",\"First\n\"\"").append(i).append("\"\"\n\",Last,\"mail\n").append(i).append("\",123\n");
+        }
+        Path file = write(csv.toString());
+
+        List<Client> clients = readAll(file, 1, 7);
+
+        assertThat(clients).hasSize(200);
+        for (int i = 0; i < clients.size(); i++) {
+            assertThat(clients.get(i).getId()).isEqualTo(i + 1L);
+            assertThat(clients.get(i).getFirstName()).isEqualTo("First\n\"" + (i + 1) + "\"\n");
+            assertThat(clients.get(i).getEmail()).isEqualTo("mail\n" + (i + 1));
+        }
+    }
+
+    @Test
+    void resumesFromSavedPosition() throws IOException {
+        Path file = write("1,a,a,a,a\n2,b,b,b,b\n3,c,c,c,c\n");
+        ExecutionContext context = new ExecutionContext();
+
+        MappedCsvItemReader<Client> reader = reader(file, 0, Files.size(file));
+        reader.open(context);
+        reader.read();
+        reader.update(context);
+        reader.close();
+
+        MappedCsvItemReader<Client> restarted = reader(file, 0, Files.size(file));
+        restarted.open(context);
+        assertThat(restarted.read().getId()).isEqualTo(2L);
+    }
+
+    private List<Client> readAll(Path file, int linesToSkip, int gridSize) {
+        CsvFilePartitioner partitioner = new CsvFilePartitioner();
+        partitioner.setResource(new FileSystemResource(file));
+        partitioner.setLinesToSkip(linesToSkip);
+        Map<Long, ExecutionContext> partitions = new TreeMap<>();
+        partitioner.partition(gridSize).values()
+                .forEach(context -> partitions.put(context.getLong(CsvFilePartitioner.START_OFFSET), context));
+
+        List<Client> clients = new ArrayList<>();
+        for (ExecutionContext context : partitions.values()) {
+            MappedCsvItemReader<Client> reader = reader(file,
+                    context.getLong(CsvFilePartitioner.START_OFFSET), context.getLong(CsvFilePartitioner.END_OFFSET));
+            reader.open(new ExecutionContext());
+            Client client;
+            while ((client = reader.read()) != null) {
+                clients.add(client);
+            }
+            reader.close();
+        }
+        return clients;
+    }
+
+    private MappedCsvItemReader<Client> reader(Path file, long start, long end) {
+        MappedCsvItemReader<Client> reader = new MappedCsvItemReader<>();
+        reader.setName("test");
+        reader.setFile(file);
+        reader.setStartOffset(start);
+        reader.setEndOffset(end);
+        reader.setRecordMapper(new ClientCsvRecordMapper());
+        return reader;
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = directory.resolve("clients.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
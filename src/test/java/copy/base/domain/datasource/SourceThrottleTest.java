@@ -0,0 +1,66 @@
+package copy.base.domain.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SourceThrottleTest {
+
+    @Test
+    void limitsRowsAfterTheInitialBurst() throws InterruptedException {
+        SourceThrottle throttle = new SourceThrottle();
+        throttle.setRowsPerSecond(1000);
+        throttle.afterPropertiesSet();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1300; i++) {
+            throttle.acquire(1, 0);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertThat(elapsed).isBetween(250L, 1000L);
+        assertThat(throttle.getWaitedMillis()).isPositive();
+    }
+
+    @Test
+    void backsOffWhileTheSourceIsOverloaded() {
+        SourceThrottle throttle = new SourceThrottle();
+        throttle.setMaxActiveConnections(10);
+        throttle.setMaxQueryLatency(Duration.ofMillis(100));
+        throttle.setMinFactor(0.2);
+
+        throttle.adjust(11, Duration.ZERO, 5000);
+        assertThat(throttle.getFactor()).isEqualTo(0.5);
+        throttle.adjust(2, Duration.ofMillis(150), 2500);
+        throttle.adjust(2, Duration.ofMillis(150), 1250);
+        assertThat(throttle.getFactor()).isEqualTo(0.2);
+        throttle.adjust(2, Duration.ofMillis(50), 1000);
+        assertThat(throttle.getFactor()).isCloseTo(0.3, within(1e-9));
+        for (int i = 0; i < 10; i++) {
+            throttle.adjust(2, Duration.ofMillis(50), 1000);
+        }
+        assertThat(throttle.getFactor()).isEqualTo(1.0);
+    }
+
+    @Test
+    void jobParametersOverrideTheLimitsForTheirExecution() {
+        SourceThrottle throttle = new SourceThrottle();
+        throttle.setRowsPerSecond(1000);
+        JobExecution jobExecution = new JobExecution(1L, new JobParametersBuilder()
+                .addString(SourceThrottle.ROWS_PER_SECOND, "50", false)
+                .addLong(SourceThrottle.BYTES_PER_SECOND, 4096L, false)
+                .toJobParameters());
+
+        throttle.beforeJob(jobExecution);
+        assertThat(throttle.getRowsPerSecond()).isEqualTo(50);
+        assertThat(throttle.getBytesPerSecond()).isEqualTo(4096);
+        throttle.afterJob(jobExecution);
+        assertThat(throttle.getRowsPerSecond()).isEqualTo(1000);
+        assertThat(throttle.getBytesPerSecond()).isZero();
+    }
+}
@@ -0,0 +1,109 @@
+package copy.base.domain.datatarget;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkLoadListenerTest {
+
+    private static final String INDEX = "public.client_email_idx\tCREATE INDEX client_email_idx ON public.client USING btree (email)";
+
+    private static final String FOREIGN_KEY = "client_country_fk\tFOREIGN KEY (country) REFERENCES country(code)";
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final Statement statement = mock(Statement.class);
+
+    private final BulkLoadListener listener = new BulkLoadListener(jobRepository, jdbcTemplate, "client");
+
+    BulkLoadListenerTest() throws SQLException {
+        when(jdbcTemplate.queryForList(startsWith("SELECT QUOTE_IDENT(n.nspname)"), eq(String.class), any(), any()))
+                .thenReturn(Collections.singletonList(INDEX));
+        when(jdbcTemplate.queryForList(startsWith("SELECT QUOTE_IDENT(conname)"), eq(String.class), any(), any()))
+                .thenReturn(Collections.singletonList(FOREIGN_KEY));
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM pg_constraint"), eq(Integer.class), any(), any()))
+                .thenReturn(0);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    }
+
+    @Test
+    void restoresTheDroppedDefinitionsWhetherTheStepCompletedOrFailed() throws SQLException {
+        for (BatchStatus status : Arrays.asList(BatchStatus.COMPLETED, BatchStatus.FAILED)) {
+            StepExecution stepExecution = new StepExecution("step2", new JobExecution((long) status.ordinal()));
+            ExecutionContext context = stepExecution.getJobExecution().getExecutionContext();
+
+            listener.beforeStep(stepExecution);
+            assertThat(context.getString(BulkLoadListener.indexesKey("client"))).isEqualTo(INDEX);
+            assertThat(context.getString(BulkLoadListener.foreignKeysKey("client"))).isEqualTo(FOREIGN_KEY);
+            verify(jobRepository).updateExecutionContext(stepExecution.getJobExecution());
+
+            stepExecution.setStatus(status);
+            assertThat(listener.afterStep(stepExecution)).isNull();
+            assertThat(stepExecution.getStatus()).isEqualTo(status);
+            assertThat(context.containsKey(BulkLoadListener.indexesKey("client"))).isFalse();
+            assertThat(context.containsKey(BulkLoadListener.foreignKeysKey("client"))).isFalse();
+            verify(jobRepository, times(2)).updateExecutionContext(stepExecution.getJobExecution());
+        }
+        verify(jdbcTemplate, times(2)).execute("ALTER TABLE client DROP CONSTRAINT IF EXISTS client_country_fk");
+        verify(jdbcTemplate, times(2)).execute("DROP INDEX IF EXISTS public.client_email_idx");
+        verify(statement, times(2)).execute("CREATE INDEX client_email_idx ON public.client USING btree (email)");
+        verify(jdbcTemplate, times(2)).execute("ALTER TABLE client ADD CONSTRAINT client_country_fk FOREIGN KEY (country) REFERENCES country(code) NOT VALID");
+        verify(jdbcTemplate, times(2)).execute("ALTER TABLE client VALIDATE CONSTRAINT client_country_fk");
+    }
+
+    @Test
+    void aRestartRestoresTheDefinitionsOfTheFailedExecution() throws SQLException {
+        StepExecution failed = new StepExecution("step2", new JobExecution(1L));
+        listener.beforeStep(failed);
+        doThrow(new SQLException("could not create unique index")).when(statement).execute(startsWith("CREATE INDEX"));
+        failed.setStatus(BatchStatus.COMPLETED);
+        listener.afterStep(failed);
+        assertThat(failed.getStatus()).isEqualTo(BatchStatus.FAILED);
+        assertThat(failed.getJobExecution().getExecutionContext().getString(BulkLoadListener.indexesKey("client"))).isEqualTo(INDEX);
+
+        // the restarted execution sees the table already stripped and reuses the persisted definitions
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), any())).thenReturn(Collections.emptyList());
+        JobExecution restarted = new JobExecution(2L);
+        restarted.setExecutionContext(new ExecutionContext(failed.getJobExecution().getExecutionContext()));
+        StepExecution stepExecution = new StepExecution("step2", restarted);
+        listener.beforeStep(stepExecution);
+        verify(jobRepository, never()).updateExecutionContext(restarted);
+        assertThat(restarted.getExecutionContext().getString(BulkLoadListener.indexesKey("client"))).isEqualTo(INDEX);
+
+        reset(statement);
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        listener.afterStep(stepExecution);
+        assertThat(stepExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        verify(statement).execute("CREATE INDEX client_email_idx ON public.client USING btree (email)");
+        assertThat(restarted.getExecutionContext().containsKey(BulkLoadListener.indexesKey("client"))).isFalse();
+    }
+}
@@ -0,0 +1,129 @@
+package copy.base.domain.datatarget;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FanOutItemWriterTest {
+
+    private final List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void detachesAFailingTargetAndKeepsWritingTheOthers() throws Exception {
+        FanOutItemWriter<Integer> writer = writer(first::addAll, second::addAll, items -> {
+            throw new IllegalStateException("down");
+        });
+        StepExecution stepExecution = new StepExecution("step", null);
+        StepExecutionListener listener = writer.listener();
+        listener.beforeStep(stepExecution);
+
+        writer.write(Arrays.asList(1, 2));
+        writer.write(Arrays.asList(3));
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+
+        assertThat(first).containsExactly(1, 2, 3);
+        assertThat(second).containsExactly(1, 2, 3);
+        assertThat(listener.afterStep(stepExecution)).isNull();
+        assertThat(stepExecution.getExecutionContext().getString(FanOutItemWriter.DETACHED_KEY)).isEqualTo("t2");
+        assertThat(stepExecution.getExecutionContext().getLong(FanOutItemWriter.writtenKey("t0"))).isEqualTo(3);
+        assertThat(stepExecution.getExecutionContext().getLong(FanOutItemWriter.writtenKey("t2"))).isZero();
+        assertThat(stepExecution.getExecutionContext().getString(FanOutItemWriter.failureKey("t2"))).contains("down");
+    }
+
+    @Test
+    void failsTheChunkWhenNoTargetIsLeft() throws Exception {
+        FanOutItemWriter<Integer> writer = writer(first::addAll, items -> {
+            throw new IllegalStateException("second down");
+        });
+        writer.write(Arrays.asList(1));
+        assertThat(first).containsExactly(1);
+
+        FanOutItemWriter<Integer> failing = writer(items -> {
+            throw new IllegalStateException("first down");
+        }, items -> {
+            throw new IllegalStateException("second down");
+        });
+        assertThatThrownBy(() -> failing.write(Arrays.asList(2))).hasMessageEndingWith("down");
+        assertThatThrownBy(() -> failing.write(Arrays.asList(3)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("No target left");
+    }
+
+    @Test
+    void theJobCarriesOnAfterATargetWasDetached() throws Exception {
+        MapJobRepositoryFactoryBean repositoryFactory = new MapJobRepositoryFactoryBean();
+        repositoryFactory.afterPropertiesSet();
+        JobRepository jobRepository = repositoryFactory.getObject();
+        StepBuilderFactory steps = new StepBuilderFactory(jobRepository, new ResourcelessTransactionManager());
+        FanOutItemWriter<Integer> writer = writer(first::addAll, items -> {
+            throw new IllegalStateException("down");
+        });
+        List<String> ran = new ArrayList<>();
+        Step before = steps.get("before").tasklet((contribution, chunkContext) -> RepeatStatus.FINISHED).build();
+        Step fanOut = steps.get("fanOut").<Integer, Integer>chunk(2)
+                .reader(new ListItemReader<>(Arrays.asList(1, 2, 3)))
+                .writer(writer)
+                .listener(writer.listener())
+                .build();
+        Step after = steps.get("after").tasklet((contribution, chunkContext) -> {
+            ran.add("after");
+            return RepeatStatus.FINISHED;
+        }).build();
+        Job job = new JobBuilderFactory(jobRepository).get("job").flow(before).next(fanOut).next(after).end().build();
+        SimpleJobLauncher launcher = new SimpleJobLauncher();
+        launcher.setJobRepository(jobRepository);
+        launcher.afterPropertiesSet();
+
+        JobExecution jobExecution = launcher.run(job, new JobParameters());
+
+        assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(jobExecution.getExitStatus().getExitCode()).isEqualTo(ExitStatus.COMPLETED.getExitCode());
+        assertThat(ran).containsExactly("after");
+        assertThat(first).containsExactly(1, 2, 3);
+        StepExecution stepExecution = jobExecution.getStepExecutions().stream()
+                .filter(execution -> execution.getStepName().equals("fanOut"))
+                .findFirst().orElseThrow(IllegalStateException::new);
+        assertThat(stepExecution.getExecutionContext().getString(FanOutItemWriter.DETACHED_KEY)).isEqualTo("t1");
+    }
+
+    @SafeVarargs
+    private static FanOutItemWriter<Integer> writer(ItemWriter<Integer>... targets) {
+        Map<String, ItemWriter<? super Integer>> writers = new LinkedHashMap<>();
+        for (int i = 0; i < targets.length; i++) {
+            writers.put("t" + i, targets[i]);
+        }
+        FanOutItemWriter<Integer> writer = new FanOutItemWriter<>();
+        writer.setTargets(writers);
+        writer.setTaskExecutor(new SimpleAsyncTaskExecutor());
+        writer.afterPropertiesSet();
+        return writer;
+    }
+}
@@ -0,0 +1,54 @@
+package copy.base.domain.datatarget;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgCopyBufferTest {
+
+    @Test
+    void encodesEscapedTextRows() {
+        PgCopyBuffer buffer = new PgCopyBuffer(PgCopyFormat.TEXT, 4);
+        buffer.startCopy();
+        buffer.startRow(3);
+        buffer.addLong(42L);
+        buffer.addString("a\tb\\c\nż");
+        buffer.addString(null);
+        buffer.endRow();
+        buffer.endCopy();
+
+        String text = new String(buffer.array(), 0, buffer.size(), StandardCharsets.UTF_8);
+        assertThat(text).isEqualTo("42\ta\\tb\\\\c\\nż\t\\N\n");
+    }
+
+    @Test
+    void encodesBinaryRows() {
+        PgCopyBuffer buffer = new PgCopyBuffer(PgCopyFormat.BINARY, 4);
+        buffer.startCopy();
+        buffer.startRow(2);
+        buffer.addLong(7L);
+        buffer.addString("żab");
+        buffer.endRow();
+        buffer.endCopy();
+
+        ByteBuffer bytes = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.size()));
+        byte[] signature = new byte[11];
+        bytes.get(signature);
+        assertThat(new String(signature, 0, 5, StandardCharsets.US_ASCII)).isEqualTo("PGCOP");
+        assertThat(bytes.getInt()).isZero();
+        assertThat(bytes.getInt()).isZero();
+        assertThat(bytes.getShort()).isEqualTo((short) 2);
+        assertThat(bytes.getInt()).isEqualTo(8);
+        assertThat(bytes.getLong()).isEqualTo(7L);
+        assertThat(bytes.getInt()).isEqualTo(4);
+        byte[] value = new byte[4];
+        bytes.get(value);
+        assertThat(new String(value, StandardCharsets.UTF_8)).isEqualTo("żab");
+        assertThat(bytes.getShort()).isEqualTo((short) -1);
+        assertThat(bytes.hasRemaining()).isFalse();
+    }
+}
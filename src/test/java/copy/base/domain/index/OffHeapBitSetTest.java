@@ -0,0 +1,30 @@
+package copy.base.domain.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapBitSetTest {
+
+    @Test
+    void containsExactlyTheAddedKeysOfItsRange() {
+        OffHeapBitSet ids = new OffHeapBitSet(-100, 1000);
+        for (long key = -100; key <= 1000; key += 3) {
+            assertThat(ids.add(key)).isTrue();
+        }
+        assertThat(ids.add(-100)).isFalse();
+        assertThat(ids.size()).isEqualTo(367);
+        for (long key = -200; key <= 1100; key++) {
+            assertThat(ids.contains(key)).isEqualTo(key >= -100 && key <= 1000 && (key + 100) % 3 == 0);
+        }
+        assertThatThrownBy(() -> ids.add(1001)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void takesOneBitPerKeyOfTheRange() {
+        assertThat(OffHeapBitSet.bytes(1, 64)).isEqualTo(8);
+        assertThat(OffHeapBitSet.bytes(1, 1_000_000_000)).isEqualTo(125_000_000L);
+        assertThat(OffHeapBitSet.bytes(Long.MIN_VALUE, Long.MAX_VALUE)).isEqualTo(Long.MAX_VALUE);
+    }
+}
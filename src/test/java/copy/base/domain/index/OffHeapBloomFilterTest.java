@@ -0,0 +1,34 @@
+package copy.base.domain.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapBloomFilterTest {
+
+    @Test
+    void hasNoFalseNegativesAndFewFalsePositives() {
+        OffHeapBloomFilter filter = new OffHeapBloomFilter(100_000, 10);
+        for (long key = 0; key < 100_000; key++) {
+            filter.add(key * 7);
+        }
+        for (long key = 0; key < 100_000; key++) {
+            assertThat(filter.mightContain(key * 7)).isTrue();
+        }
+        int falsePositives = 0;
+        for (long key = 0; key < 100_000; key++) {
+            if (filter.mightContain(key * 7 + 1)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(5_000);
+    }
+
+    @Test
+    void staysAddressableForBillionsOfKeys() {
+        assertThat(OffHeapBloomFilter.wordCount(100_000, 10)).isEqualTo(1 << 14);
+        assertThat(OffHeapBloomFilter.wordCount(1_000_000_000, 10)).isEqualTo(OffHeapBloomFilter.MAX_WORD_COUNT);
+        assertThat(OffHeapBloomFilter.wordCount(5_000_000_000L, 10)).isEqualTo(OffHeapBloomFilter.MAX_WORD_COUNT);
+        assertThat((long) OffHeapBloomFilter.MAX_WORD_COUNT * Long.BYTES).isGreaterThan(Integer.MAX_VALUE);
+    }
+}
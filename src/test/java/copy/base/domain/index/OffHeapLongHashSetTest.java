@@ -0,0 +1,55 @@
+package copy.base.domain.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OffHeapLongHashSetTest {
+
+    @Test
+    void containsExactlyTheAddedKeys() {
+        OffHeapLongHashSet ids = new OffHeapLongHashSet(100_000);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = i % 3 == 0 ? random.nextLong() : random.nextInt(200_000) - 100_000;
+            assertThat(ids.add(key)).isEqualTo(expected.add(key));
+        }
+        assertThat(ids.size()).isEqualTo(expected.size());
+        for (int i = -100_000; i < 100_000; i++) {
+            assertThat(ids.contains(i)).isEqualTo(expected.contains((long) i));
+        }
+        for (long key : expected) {
+            assertThat(ids.contains(key)).isTrue();
+        }
+    }
+
+    @Test
+    void tracksZeroAndExtremeKeys() {
+        OffHeapLongHashSet ids = new OffHeapLongHashSet(4);
+        assertThat(ids.contains(0)).isFalse();
+        assertThat(ids.add(0)).isTrue();
+        assertThat(ids.add(0)).isFalse();
+        assertThat(ids.add(Long.MIN_VALUE)).isTrue();
+        assertThat(ids.add(Long.MAX_VALUE)).isTrue();
+        assertThat(ids.contains(0)).isTrue();
+        assertThat(ids.contains(Long.MIN_VALUE)).isTrue();
+        assertThat(ids.contains(Long.MAX_VALUE)).isTrue();
+        assertThat(ids.size()).isEqualTo(3);
+    }
+
+    @Test
+    void failsInsteadOfGrowingPastItsCapacity() {
+        OffHeapLongHashSet ids = new OffHeapLongHashSet(8);
+        assertThat(ids.bytes()).isEqualTo(16 * Long.BYTES);
+        for (long key = 1; key <= 12; key++) {
+            ids.add(key);
+        }
+        assertThatThrownBy(() -> ids.add(13)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,83 @@
+package copy.base.domain.overlap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CommittedWatermarkTest {
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    private final CommittedWatermark watermark = new CommittedWatermark(jobRepository, "step1");
+
+    private final JobExecution jobExecution = new JobExecution(new JobInstance(1L, "job"), 1L, new JobParameters(), null);
+
+    @BeforeEach
+    void startJob() {
+        watermark.beforeJob(jobExecution);
+    }
+
+    @Test
+    void staysBelowTheOldestChunkInFlight() throws Exception {
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        watermark.read(1);
+        watermark.read(2);
+        other.submit(() -> watermark.read(3)).get();
+        watermark.read(4);
+        watermark.read(5);
+        watermark.afterChunk(null);
+        assertThat(watermark.await(0)).isEqualTo(2);
+
+        other.submit(() -> watermark.afterChunk(null)).get();
+        other.shutdown();
+        assertThat(watermark.await(2)).isEqualTo(5);
+    }
+
+    @Test
+    void isUnboundedOnceTheStepCompleted() throws Exception {
+        watermark.read(1);
+        watermark.afterStep(stepExecution(BatchStatus.COMPLETED));
+        assertThat(watermark.await(Long.MIN_VALUE)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void failsWaitersWhenTheStepFailed() {
+        watermark.read(1);
+        watermark.afterStep(stepExecution(BatchStatus.FAILED));
+        assertThatThrownBy(() -> watermark.await(0)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsKeysOutOfOrder() {
+        watermark.read(2);
+        assertThatThrownBy(() -> watermark.read(1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void isUnboundedWhenARestartSkipsTheCompletedStep() throws Exception {
+        when(jobRepository.getLastStepExecution(any(), eq("step1"))).thenReturn(stepExecution(BatchStatus.COMPLETED));
+        watermark.beforeJob(jobExecution);
+        assertThat(watermark.await(0)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    private StepExecution stepExecution(BatchStatus status) {
+        StepExecution stepExecution = new StepExecution("step1", jobExecution);
+        stepExecution.setStatus(status);
+        return stepExecution;
+    }
+}
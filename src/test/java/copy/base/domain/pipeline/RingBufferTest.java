@@ -0,0 +1,87 @@
+package copy.base.domain.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferTest {
+
+    @Test
+    void rejectsOffersWhenFullAndPollsInOrder() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertThat(buffer.capacity()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.poll()).isEqualTo(i);
+        }
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.offer(5)).isTrue();
+        assertThat(buffer.poll()).isEqualTo(5);
+    }
+
+    @Test
+    void handsEveryItemToExactlyOneConsumer() throws Exception {
+        RingBuffer<Long> buffer = new RingBuffer<>(64);
+        int producers = 3;
+        int consumers = 3;
+        long perProducer = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            for (int p = 0; p < producers; p++) {
+                long offset = p * perProducer;
+                executor.submit(() -> {
+                    for (long i = 1; i <= perProducer; i++) {
+                        while (!buffer.offer(offset + i)) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+            long total = producers * perProducer;
+            AtomicLong consumed = new AtomicLong();
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int c = 0; c < consumers; c++) {
+                results.add(executor.submit(() -> {
+                    long[] sumAndCount = new long[2];
+                    while (consumed.get() < total) {
+                        Long item = buffer.poll();
+                        if (item == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        sumAndCount[0] += item;
+                        sumAndCount[1]++;
+                        consumed.incrementAndGet();
+                    }
+                    return sumAndCount;
+                }));
+            }
+
+            long sum = 0;
+            long count = 0;
+            for (Future<long[]> result : results) {
+                long[] sumAndCount = result.get(30, TimeUnit.SECONDS);
+                sum += sumAndCount[0];
+                count += sumAndCount[1];
+            }
+            assertThat(count).isEqualTo(total);
+            assertThat(sum).isEqualTo(total * (total + 1) / 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
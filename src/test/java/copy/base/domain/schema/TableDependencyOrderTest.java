@@ -0,0 +1,52 @@
+package copy.base.domain.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TableDependencyOrderTest {
+
+    @Test
+    void groupsTablesIntoForeignKeyLevels() {
+        TableMetadata orders = table("orders", "customer", "product");
+        TableMetadata customer = table("customer");
+        TableMetadata product = table("product", "supplier");
+        TableMetadata supplier = table("supplier");
+
+        List<List<String>> levels = names(TableDependencyOrder.levels(Arrays.asList(orders, customer, product, supplier)));
+
+        assertThat(levels).containsExactly(
+                Arrays.asList("customer", "supplier"),
+                Arrays.asList("product"),
+                Arrays.asList("orders"));
+    }
+
+    @Test
+    void failsOnAForeignKeyCycleNamingItsTables() {
+        TableMetadata a = table("a", "b");
+        TableMetadata b = table("b", "a");
+        TableMetadata c = table("c");
+        TableMetadata d = table("d", "a", "c");
+
+        assertThatThrownBy(() -> TableDependencyOrder.levels(Arrays.asList(a, b, c, d)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Foreign key cycle between tables a, b,");
+    }
+
+    private static TableMetadata table(String name, String... dependencies) {
+        TableMetadata table = new TableMetadata("public", name);
+        table.getDependencies().addAll(Arrays.asList(dependencies));
+        return table;
+    }
+
+    private static List<List<String>> names(List<List<TableMetadata>> levels) {
+        return levels.stream()
+                .map(level -> level.stream().map(TableMetadata::getName).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,129 @@
+package copy.base.domain.staging;
+
+import copy.base.domain.datasource.Client;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.NonTransientResourceException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StagingFileItemWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasWrittenAndResumesAfterAKey() throws Exception {
+        Path file = directory.resolve("client" + StagingFormat.EXTENSION);
+        StagingFileItemWriter<Client> writer = writer(file);
+        writer.open(new ExecutionContext());
+        writer.write(clients(1, 100));
+        writer.write(Arrays.asList(new Client(101L, null, "Lovelace", "ada@example.com", "555"), new Client(102L, "Grace", null, null, null)));
+        writer.write(clients(103, 200));
+        finish(writer);
+
+        List<Client> all = read(file, null);
+        assertThat(all).extracting(Client::getId).containsExactlyElementsOf(ids(1, 200));
+        assertThat(all.get(100)).extracting(Client::getFirstName, Client::getLastName).containsExactly(null, "Lovelace");
+        assertThat(all.get(101).getFirstName()).isEqualTo("Grace");
+
+        assertThat(read(file, 150L)).extracting(Client::getId).containsExactlyElementsOf(ids(151, 200));
+        assertThat(read(file, 200L)).isEmpty();
+        assertThat(StagingFormat.partFiles(directory)).isEmpty();
+    }
+
+    @Test
+    void restartTruncatesToTheLastCommittedBlock() throws Exception {
+        Path file = directory.resolve("client" + StagingFormat.EXTENSION);
+        ExecutionContext executionContext = new ExecutionContext();
+        StagingFileItemWriter<Client> writer = writer(file);
+        writer.open(executionContext);
+        writer.write(clients(1, 50));
+        writer.update(executionContext);
+        // written but not committed
+        writer.write(clients(51, 100));
+        writer.close();
+
+        StagingFileItemWriter<Client> restarted = writer(file);
+        restarted.open(executionContext);
+        restarted.write(clients(51, 80));
+        finish(restarted);
+
+        assertThat(read(file, null)).extracting(Client::getId).containsExactlyElementsOf(ids(1, 80));
+    }
+
+    @Test
+    void detectsCorruptBlocks() throws Exception {
+        Path file = directory.resolve("client" + StagingFormat.EXTENSION);
+        StagingFileItemWriter<Client> writer = writer(file);
+        writer.open(new ExecutionContext());
+        writer.write(clients(1, 100));
+        finish(writer);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[StagingFormat.HEADER_SIZE + StagingFormat.BLOCK_HEADER_SIZE + 10] ^= 0x40;
+        Files.write(file, bytes);
+
+        assertThatThrownBy(() -> read(file, null)).isInstanceOf(NonTransientResourceException.class);
+    }
+
+    private static StagingFileItemWriter<Client> writer(Path file) {
+        StagingFileItemWriter<Client> writer = new StagingFileItemWriter<>();
+        writer.setName("stagingWriter");
+        writer.setFile(file);
+        writer.setCodec(new ClientStagingCodec());
+        writer.setKey(Client::getId);
+        writer.afterPropertiesSet();
+        return writer;
+    }
+
+    private static void finish(StagingFileItemWriter<Client> writer) {
+        StepExecution stepExecution = new StepExecution("exportWorker", new JobExecution(1L));
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        writer.afterStep(stepExecution);
+        assertThat(stepExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        writer.close();
+    }
+
+    private static List<Client> read(Path file, Long startAfter) throws Exception {
+        StagingFileItemReader<Client> reader = new StagingFileItemReader<>();
+        reader.setFile(file);
+        reader.setCodec(new ClientStagingCodec());
+        reader.setKey(Client::getId);
+        reader.setStartAfter(startAfter);
+        reader.afterPropertiesSet();
+        reader.open(new ExecutionContext());
+        try {
+            List<Client> clients = new ArrayList<>();
+            for (Client client = reader.read(); client != null; client = reader.read()) {
+                clients.add(client);
+            }
+            return clients;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static List<Client> clients(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(id -> new Client(id, "first" + id, "last" + id, id + "@example.com", "555-" + id))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+}
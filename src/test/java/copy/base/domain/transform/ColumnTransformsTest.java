@@ -0,0 +1,48 @@
+package copy.base.domain.transform;
+
+import copy.base.domain.datasource.Client;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnTransformsTest {
+
+    @Test
+    void mapsCaseWithoutCopyingUnchangedAsciiValues() {
+        String upper = "ALREADY UPPER 123";
+
+        assertThat(ColumnTransforms.compile("upper").apply(upper)).isSameAs(upper);
+        assertThat(ColumnTransforms.compile("upper").apply("Mixed case")).isEqualTo("MIXED CASE");
+        assertThat(ColumnTransforms.compile("lower").apply("ŻÓŁW i Kot")).isEqualTo("żółw i kot");
+        assertThat(ColumnTransforms.compile("upper").apply("straße")).isEqualTo("STRASSE");
+    }
+
+    @Test
+    void chainsOperationsFromLeftToRight() {
+        assertThat(ColumnTransforms.compile(" trim | upper ").apply("  abc ")).isEqualTo("ABC");
+        assertThat(ColumnTransforms.compile("mask:4").apply("334-559-6757")).isEqualTo("********6757");
+        assertThat(ColumnTransforms.compile("replace:@.*=>@example.com").apply("kcoyle0@php.net"))
+                .isEqualTo("kcoyle0@example.com");
+        assertThat(ColumnTransforms.compile("const:n/a").apply("anything")).isEqualTo("n/a");
+        assertThat(ColumnTransforms.compile("upper").apply(null)).isNull();
+    }
+
+    @Test
+    void clientProcessorReturnsSameItemWhenNothingChanges() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("firstName", "upper");
+        columns.put("phone", "mask:2");
+        ClientTransformProcessor processor = new ClientTransformProcessor(columns);
+
+        Client unchanged = new Client(1L, "ANN", "lee", "a@b.c", "12");
+        Client changed = processor.process(new Client(2L, "ann", "lee", "a@b.c", "1234"));
+
+        assertThat(processor.process(unchanged)).isSameAs(unchanged);
+        assertThat(changed.getFirstName()).isEqualTo("ANN");
+        assertThat(changed.getLastName()).isEqualTo("lee");
+        assertThat(changed.getPhone()).isEqualTo("**34");
+    }
+}
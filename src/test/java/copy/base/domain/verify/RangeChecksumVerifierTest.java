@@ -0,0 +1,109 @@
+package copy.base.domain.verify;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RangeChecksumVerifierTest {
+
+    @Test
+    void splitsRangesIntoContiguousParts() {
+        List<RangeChecksumVerifier.Range> ranges = new RangeChecksumVerifier.Range(1, 100).split(16);
+
+        assertThat(ranges).hasSize(15);
+        assertThat(ranges).allMatch(range -> range.holdsAtMost(7));
+        assertThat(new RangeChecksumVerifier.Range(5, 6).split(16)).hasSize(2);
+    }
+
+    @Test
+    void splitsTheFullKeySpaceWithoutOverflow() {
+        List<RangeChecksumVerifier.Range> ranges = new RangeChecksumVerifier.Range(Long.MIN_VALUE, Long.MAX_VALUE).split(4);
+
+        assertThat(ranges).hasSize(4);
+        assertThat(ranges).noneMatch(range -> range.holdsAtMost(Long.MAX_VALUE / 4));
+    }
+
+    @Test
+    void narrowsDifferingRangesDownToMissingExtraAndDifferentKeys() throws Exception {
+        Map<Long, String> sourceRows = new TreeMap<>();
+        for (long id = 1; id <= 40; id++) {
+            sourceRows.put(id, "row" + id);
+        }
+        Map<Long, String> targetRows = new TreeMap<>(sourceRows);
+        targetRows.remove(3L);
+        targetRows.put(17L, "changed");
+        targetRows.put(45L, "row45");
+
+        RangeChecksumVerifier verifier = new RangeChecksumVerifier();
+        verifier.setSource(table(sourceRows));
+        verifier.setTarget(table(targetRows));
+        verifier.setTaskExecutor(new TaskExecutorAdapter(Runnable::run));
+        verifier.setTable("client");
+        verifier.setKey("id");
+        verifier.setExpressions("id", "lower(firstName)");
+        verifier.setGridSize(2);
+        verifier.setFanout(2);
+        verifier.setLeafSize(4);
+        verifier.afterPropertiesSet();
+
+        assertThat(verifier.verify())
+                .extracting(RangeChecksumVerifier.Mismatch::getKey, RangeChecksumVerifier.Mismatch::getKind)
+                .containsExactlyInAnyOrder(
+                        tuple(3L, RangeChecksumVerifier.Mismatch.Kind.MISSING),
+                        tuple(17L, RangeChecksumVerifier.Mismatch.Kind.DIFFERENT),
+                        tuple(45L, RangeChecksumVerifier.Mismatch.Kind.EXTRA));
+
+        verifier.setTarget(table(sourceRows));
+        assertThat(verifier.verify()).isEmpty();
+    }
+
+    /**
+     * Answers the bounds, checksum and row hash queries of the verifier from rows by key, a row hash standing in
+     * for its md5.
+     */
+    @SuppressWarnings("unchecked")
+    private static JdbcOperations table(Map<Long, String> rows) throws Exception {
+        TreeMap<Long, String> sorted = new TreeMap<>(rows);
+        JdbcOperations jdbc = mock(JdbcOperations.class);
+        when(jdbc.queryForObject(startsWith("SELECT MIN"), any(RowMapper.class))).thenAnswer(invocation -> {
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getObject(1, Long.class)).thenReturn(sorted.firstKey());
+            when(resultSet.getObject(2, Long.class)).thenReturn(sorted.lastKey());
+            return invocation.<RowMapper<?>>getArgument(1).mapRow(resultSet, 0);
+        });
+        when(jdbc.queryForObject(startsWith("SELECT COUNT"), any(RowMapper.class), any(), any())).thenAnswer(invocation -> {
+            Map<Long, String> range = sorted.subMap(invocation.getArgument(2), true, invocation.getArgument(3), true);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getLong(1)).thenReturn((long) range.size());
+            when(resultSet.getBigDecimal(2)).thenReturn(BigDecimal.valueOf(range.values().stream().mapToLong(String::hashCode).sum()));
+            return invocation.<RowMapper<?>>getArgument(1).mapRow(resultSet, 0);
+        });
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Long, String> row : sorted.subMap(invocation.getArgument(2), true, invocation.getArgument(3), true).entrySet()) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getLong(1)).thenReturn(row.getKey());
+                when(resultSet.getString(2)).thenReturn(row.getValue());
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbc).query(startsWith("SELECT id"), any(RowCallbackHandler.class), any(), any());
+        return jdbc;
+    }
+}
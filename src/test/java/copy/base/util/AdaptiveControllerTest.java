@@ -0,0 +1,91 @@
+package copy.base.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.repeat.CompletionPolicy;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+
+import static copy.base.util.AdaptiveController.Action.ADD_WORKER;
+import static copy.base.util.AdaptiveController.Action.GROW_CHUNK;
+import static copy.base.util.AdaptiveController.Action.NONE;
+import static copy.base.util.AdaptiveController.Action.REMOVE_WORKER;
+import static copy.base.util.AdaptiveController.Action.SHRINK_CHUNK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveControllerTest {
+
+    private static final long FAST = Duration.ofMillis(100).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    @Test
+    void probesWhileFastAndUndoesProbesThatLowerThroughput() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(2);
+        taskExecutor.setMaxPoolSize(2);
+        AdaptiveController controller = controller(taskExecutor);
+
+        assertThat(controller.getConcurrency()).isEqualTo(2);
+        assertThat(taskExecutor.getMaxPoolSize()).isEqualTo(4);
+
+        assertThat(controller.adjust(1000, FAST)).isEqualTo(ADD_WORKER);
+        assertThat(taskExecutor.getCorePoolSize()).isEqualTo(3);
+        assertThat(controller.adjust(1500, FAST)).isEqualTo(GROW_CHUNK);
+        assertThat(controller.getChunkSize()).isEqualTo(2048);
+        assertThat(controller.adjust(1000, FAST)).isEqualTo(SHRINK_CHUNK);
+        assertThat(controller.getChunkSize()).isEqualTo(1024);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(controller.adjust(1000, FAST)).isEqualTo(NONE);
+        }
+        assertThat(controller.adjust(1000, FAST)).isEqualTo(ADD_WORKER);
+        assertThat(controller.adjust(900, FAST)).isEqualTo(REMOVE_WORKER);
+        assertThat(controller.getConcurrency()).isEqualTo(3);
+    }
+
+    @Test
+    void backsOffWithinBoundsWhenSlow() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(2);
+        AdaptiveController controller = controller(taskExecutor);
+
+        assertThat(controller.adjust(1000, SLOW)).isEqualTo(SHRINK_CHUNK);
+        assertThat(controller.adjust(1000, SLOW)).isEqualTo(SHRINK_CHUNK);
+        assertThat(controller.getChunkSize()).isEqualTo(256);
+        assertThat(controller.adjust(1000, SLOW)).isEqualTo(REMOVE_WORKER);
+        assertThat(controller.adjust(1000, SLOW)).isEqualTo(NONE);
+        assertThat(controller.getConcurrency()).isEqualTo(1);
+        assertThat(taskExecutor.getCorePoolSize()).isEqualTo(1);
+    }
+
+    @Test
+    void completesChunksAtTheCurrentSize() {
+        AdaptiveController controller = controller(null);
+        CompletionPolicy policy = controller.completionPolicy();
+        RepeatContext context = policy.start(null);
+        for (int i = 0; i < 1023; i++) {
+            policy.update(context);
+        }
+        assertThat(policy.isComplete(context)).isFalse();
+        policy.update(context);
+        assertThat(policy.isComplete(context)).isTrue();
+
+        assertThat(controller.adjust(1000, FAST)).isEqualTo(GROW_CHUNK);
+        assertThat(policy.isComplete(context)).isFalse();
+    }
+
+    private static AdaptiveController controller(ThreadPoolTaskExecutor taskExecutor) {
+        AdaptiveController controller = new AdaptiveController();
+        controller.setName("step");
+        controller.setChunkSize(1024);
+        controller.setMinChunkSize(256);
+        controller.setMaxChunkSize(4096);
+        controller.setMinConcurrency(1);
+        controller.setMaxConcurrency(4);
+        controller.setTargetLatency(Duration.ofSeconds(1));
+        controller.setTaskExecutor(taskExecutor);
+        controller.afterPropertiesSet();
+        return controller;
+    }
+}
@@ -0,0 +1,33 @@
+package copy.base.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.repeat.RepeatContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteBudgetCompletionPolicyTest {
+
+    @Test
+    void completesAtTheByteBudgetOrTheMaximumCount() {
+        ByteBudgetCompletionPolicy<String> policy = new ByteBudgetCompletionPolicy<>(10, 4, String::length);
+
+        RepeatContext context = policy.start(null);
+        read(policy, context, "abcd");
+        assertThat(policy.isComplete(context)).isFalse();
+        read(policy, context, "efghij");
+        assertThat(policy.isComplete(context)).isTrue();
+
+        context = policy.start(null);
+        for (int i = 0; i < 3; i++) {
+            read(policy, context, "a");
+            assertThat(policy.isComplete(context)).isFalse();
+        }
+        read(policy, context, "a");
+        assertThat(policy.isComplete(context)).isTrue();
+    }
+
+    private static void read(ByteBudgetCompletionPolicy<String> policy, RepeatContext context, String item) {
+        policy.update(context);
+        policy.afterRead(item);
+    }
+}
@@ -0,0 +1,56 @@
+package copy.base.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RestartingJobLauncherCommandLineRunnerTest {
+
+    private final JobLauncher jobLauncher = mock(JobLauncher.class);
+
+    private final JobExplorer jobExplorer = mock(JobExplorer.class);
+
+    private final RestartingJobLauncherCommandLineRunner runner =
+            new RestartingJobLauncherCommandLineRunner(jobLauncher, jobExplorer, mock(JobRepository.class));
+
+    @Test
+    void restartsFailedJobsAndSkipsCompletedOrNeverRunOnes() throws Exception {
+        runner.setRestart(true);
+        JobParameters failedParameters = new JobParametersBuilder().addLong("run.id", 2L).toJobParameters();
+        Job failed = job("failed", BatchStatus.FAILED, failedParameters);
+        Job completed = job("completed", BatchStatus.COMPLETED, new JobParameters());
+        Job neverRun = mock(Job.class);
+        when(neverRun.getName()).thenReturn("neverRun");
+
+        runner.execute(failed, new JobParameters());
+        runner.execute(completed, new JobParameters());
+        runner.execute(neverRun, new JobParameters());
+
+        verify(jobLauncher).run(failed, failedParameters);
+        verify(jobLauncher).run(any(), any());
+    }
+
+    private Job job(String name, BatchStatus status, JobParameters parameters) {
+        Job job = mock(Job.class);
+        when(job.getName()).thenReturn(name);
+        JobInstance instance = new JobInstance((long) name.hashCode(), name);
+        JobExecution execution = new JobExecution(instance, (long) name.hashCode(), parameters, null);
+        execution.setStatus(status);
+        when(jobExplorer.getLastJobInstance(name)).thenReturn(instance);
+        when(jobExplorer.getLastJobExecution(instance)).thenReturn(execution);
+        when(jobExplorer.getJobExecution(execution.getId())).thenReturn(execution);
+        return job;
+    }
+}
@@ -0,0 +1,52 @@
+package copy.base.util;
+
+import copy.base.domain.datasource.ColumnRangePartitioner;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StepMetricsListenerTest {
+
+    @Test
+    void recordsChunksAndPartitionProgress() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CopyMetrics metrics = new CopyMetrics(registry, Duration.ZERO);
+        StepMetricsListener listener = metrics.listener(item -> (Long) item);
+
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution("step2Worker:partition0", 7L);
+        stepExecution.getExecutionContext().putLong(ColumnRangePartitioner.MIN_VALUE, 1);
+        stepExecution.getExecutionContext().putLong(ColumnRangePartitioner.MAX_VALUE, 100);
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+        listener.beforeStep(stepExecution);
+        listener.beforeChunk(chunkContext);
+        for (long id = 1; id <= 25; id++) {
+            listener.beforeRead();
+            listener.afterRead(id);
+            listener.beforeProcess(id);
+            listener.afterProcess(id, id);
+        }
+        listener.beforeRead();
+        listener.beforeWrite(Arrays.asList(24L, 25L));
+        listener.afterWrite(Arrays.asList(24L, 25L));
+        listener.afterChunk(chunkContext);
+
+        Tags tags = Tags.of("job", "job", "step", "step2Worker", "partition", "partition0");
+        assertThat(registry.get("copy.items.read").tags(tags).counter().count()).isEqualTo(25);
+        assertThat(registry.get("copy.items.written").tags(tags).counter().count()).isEqualTo(2);
+        assertThat(registry.get("copy.chunk").tags(tags).timer().count()).isEqualTo(1);
+        assertThat(registry.get("copy.partition.progress").tags(tags).gauge().value()).isEqualTo(0.25);
+
+        listener.afterStep(stepExecution);
+        assertThat(registry.find("copy.partition.progress").gauge()).isNull();
+    }
+}
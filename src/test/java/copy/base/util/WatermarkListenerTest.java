@@ -0,0 +1,121 @@
+package copy.base.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WatermarkListenerTest {
+
+    private final JobExplorer jobExplorer = mock(JobExplorer.class);
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final WatermarkListener listener = new WatermarkListener(jobExplorer, jobRepository, jdbcTemplate, "client", "updated");
+
+    @Test
+    void copiesFromTheWatermarkOfTheLastCompletedExecution() {
+        JobInstance previous = new JobInstance(1L, "importClientJob");
+        JobExecution completed = execution(previous, 1L, BatchStatus.COMPLETED, "100");
+        JobExecution failed = execution(previous, 2L, BatchStatus.FAILED, "120");
+        when(jobExplorer.getJobInstances("importClientJob", 0, 100)).thenReturn(Collections.singletonList(previous));
+        when(jobExplorer.getJobExecutions(previous)).thenReturn(Arrays.asList(completed, failed));
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class))).thenReturn("150");
+
+        StepExecution stepExecution = new StepExecution("step2", new JobExecution(new JobInstance(2L, "importClientJob"), 3L, new JobParameters(), null));
+        listener.beforeStep(stepExecution);
+
+        ExecutionContext context = stepExecution.getJobExecution().getExecutionContext();
+        assertThat(context.getString("client" + WatermarkListener.LOWER_SUFFIX)).isEqualTo("100");
+        assertThat(context.getString(WatermarkListener.upperKey("client"))).isEqualTo("150");
+
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        listener.afterStep(stepExecution);
+        assertThat(context.getString(WatermarkListener.watermarkKey("client"))).isEqualTo("150");
+    }
+
+    @Test
+    void aFirstRunCopiesEverythingAndAFailedStepKeepsTheWatermark() {
+        when(jobExplorer.getJobInstances("importClientJob", 0, 100)).thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class))).thenReturn("150");
+
+        StepExecution stepExecution = new StepExecution("step2", new JobExecution(new JobInstance(1L, "importClientJob"), 1L, new JobParameters(), null));
+        listener.beforeStep(stepExecution);
+
+        ExecutionContext context = stepExecution.getJobExecution().getExecutionContext();
+        assertThat(context.containsKey(WatermarkListener.lowerKey("client"))).isFalse();
+        assertThat(context.getString(WatermarkListener.upperKey("client"))).isEqualTo("150");
+
+        stepExecution.setStatus(BatchStatus.FAILED);
+        listener.afterStep(stepExecution);
+        assertThat(context.containsKey(WatermarkListener.watermarkKey("client"))).isFalse();
+    }
+
+    @Test
+    void aRestartKeepsTheBoundsOfItsPartitions() {
+        JobExecution restarted = new JobExecution(new JobInstance(1L, "importClientJob"), 2L, new JobParameters(), null);
+        restarted.getExecutionContext().putString(WatermarkListener.lowerKey("client"), "100");
+        restarted.getExecutionContext().putString(WatermarkListener.upperKey("client"), "150");
+
+        listener.beforeStep(new StepExecution("step2", restarted));
+
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(String.class));
+        assertThat(restarted.getExecutionContext().getString(WatermarkListener.lowerKey("client"))).isEqualTo("100");
+        assertThat(restarted.getExecutionContext().getString(WatermarkListener.upperKey("client"))).isEqualTo("150");
+    }
+
+    @Test
+    void aRestartAfterACrashReusesTheSavedBounds() {
+        when(jobExplorer.getJobInstances("importClientJob", 0, 100)).thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class))).thenReturn("150");
+        List<ExecutionContext> saved = new ArrayList<>();
+        doAnswer(invocation -> saved.add(new ExecutionContext(invocation.<JobExecution>getArgument(0).getExecutionContext())))
+                .when(jobRepository).updateExecutionContext(any(JobExecution.class));
+
+        JobInstance instance = new JobInstance(1L, "importClientJob");
+        listener.beforeStep(new StepExecution("step2", new JobExecution(instance, 1L, new JobParameters(), null)));
+        // the process dies during step2, the repository holds only what was saved before it
+        assertThat(saved).hasSize(1);
+
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class))).thenReturn("200");
+        JobExecution restarted = new JobExecution(instance, 2L, new JobParameters(), null);
+        restarted.setExecutionContext(saved.get(0));
+        StepExecution stepExecution = new StepExecution("step2", restarted);
+        listener.beforeStep(stepExecution);
+        assertThat(restarted.getExecutionContext().getString(WatermarkListener.upperKey("client"))).isEqualTo("150");
+
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        listener.afterStep(stepExecution);
+        assertThat(restarted.getExecutionContext().getString(WatermarkListener.watermarkKey("client"))).isEqualTo("150");
+    }
+
+    private static JobExecution execution(JobInstance instance, long id, BatchStatus status, String watermark) {
+        JobExecution execution = new JobExecution(instance, id, new JobParameters(), null);
+        execution.setStatus(status);
+        execution.getExecutionContext().putString(WatermarkListener.watermarkKey("client"), watermark);
+        return execution;
+    }
+}